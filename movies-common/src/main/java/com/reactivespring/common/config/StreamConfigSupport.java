@@ -0,0 +1,30 @@
+package com.reactivespring.common.config;
+
+import com.reactivespring.common.util.SlowConsumerPolicy;
+import com.reactivespring.common.util.SlowConsumerPolicy.OverflowStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Stream beans shared by the services, configured from the service's own properties under
+ * {prefix}.stream.subscriber (overflow, bufferSize, maxDrops). Each service extends it with its prefix.
+ */
+public abstract class StreamConfigSupport {
+
+    private final String prefix;
+
+    protected StreamConfigSupport(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Bean
+    public SlowConsumerPolicy slowConsumerPolicy(Environment environment, MeterRegistry meterRegistry) {
+        var subscriber = prefix + ".stream.subscriber.";
+        return new SlowConsumerPolicy(
+                environment.getProperty(subscriber + "overflow", OverflowStrategy.class, OverflowStrategy.DROP_OLDEST),
+                environment.getProperty(subscriber + "bufferSize", Integer.class, 256),
+                environment.getProperty(subscriber + "maxDrops", Integer.class, 0),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,122 @@
+package com.reactivespring.common.journal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Local journal of a service's event stream, so stream subscribers can be served and replayed without going back
+ * to MongoDB. Each event is stored as its NDJSON line, {"offset":...,"type":"...","event":{...}} (without type
+ * when the stream has none), and streamed from the mapped segment as is; a client resumes after the last offset it
+ * received, and one whose offset is no longer retained gets {"reset":true} before the retained events. Each
+ * service extends it with its event type and its own journal properties.
+ */
+@Slf4j
+public class EventJournal<T> implements Closeable {
+
+    private static final byte[] EVENT_END = "}\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] RESET_LINE = "{\"reset\":true}\n".getBytes(StandardCharsets.US_ASCII);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String stream;
+    private final ObjectMapper objectMapper;
+    private final Function<T, ?> idOf;
+    private final SegmentedJournal journal;
+    private final Scheduler writer;
+
+    /**
+     * @param journal the segments to append to, null when the journal is disabled
+     * @param idOf    the id of an event, for the log of a failed append
+     */
+    protected EventJournal(String stream, ObjectMapper objectMapper, Function<T, ?> idOf, SegmentedJournal journal,
+                           MeterRegistry meterRegistry) {
+        this.stream = stream;
+        this.objectMapper = objectMapper;
+        this.idOf = idOf;
+        this.journal = journal;
+        this.writer = journal != null ? Schedulers.newSingle(stream + "-journal") : null;
+        if (journal != null) {
+            Gauge.builder("stream.journal.segments", journal, SegmentedJournal::segmentCount)
+                    .tag("stream", stream)
+                    .register(meterRegistry);
+            Gauge.builder("stream.journal.readers", journal, SegmentedJournal::readerCount)
+                    .tag("stream", stream)
+                    .register(meterRegistry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    // called on the event loop: the event is serialized here and appended on the single writer thread, as appends
+    // take the journal's lock and rolling a segment maps and deletes files. A failed append does not fail the
+    // write, the event is only missing from the journal
+    protected void append(String type, T event) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            var json = objectMapper.writeValueAsBytes(event);
+            writer.schedule(() -> {
+                try {
+                    journal.append(offset -> line(offset, type, json));
+                } catch (RuntimeException ex) {
+                    logFailure(event, ex);
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException ex) {
+            logFailure(event, ex);
+        }
+    }
+
+    /**
+     * NDJSON lines after the given offset (only new ones without it). The buffers wrap the mapped records, with the
+     * server's buffer factory nothing is copied before the socket write.
+     */
+    public Flux<DataBuffer> stream(Long after, DataBufferFactory bufferFactory) {
+        return journal.tail(after)
+                .map(entry -> entry.isGap()
+                        ? bufferFactory.wrap(RESET_LINE)
+                        : bufferFactory.wrap(entry.payload()));
+    }
+
+    // the appends already handed to the writer are finished before the segments are unmapped
+    @Override
+    public void close() {
+        if (journal != null) {
+            writer.disposeGracefully()
+                    .timeout(CLOSE_TIMEOUT)
+                    .onErrorResume(ex -> Mono.fromRunnable(writer::dispose))
+                    .block();
+            journal.close();
+        }
+    }
+
+    private void logFailure(T event, Exception ex) {
+        log.error("Failed to journal event {} of stream {}", idOf.apply(event), stream, ex);
+    }
+
+    private static byte[] line(long offset, String type, byte[] event) {
+        var header = "{\"offset\":" + offset + (type == null ? "" : ",\"type\":\"" + type + "\"") + ",\"event\":";
+        var prefix = header.getBytes(StandardCharsets.US_ASCII);
+        var line = new byte[prefix.length + event.length + EVENT_END.length];
+        System.arraycopy(prefix, 0, line, 0, prefix.length);
+        System.arraycopy(event, 0, line, prefix.length, event.length);
+        System.arraycopy(EVENT_END, 0, line, prefix.length + event.length, EVENT_END.length);
+        return line;
+    }
+}
@@ -0,0 +1,374 @@
+package com.reactivespring.common.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of records kept in fixed-size memory-mapped segment files and addressed by offset, the byte
+ * position of a record in the log (segment n covers [n * segmentSize, (n + 1) * segmentSize)). An append copies
+ * the record into the mapping, no write call is made, and publishes its length last with release semantics, so
+ * a reader never sees a partial record. Reads return read-only slices of the mapping, the payload is not copied.
+ * A record that does not fit the active segment rolls to a new one, and segments beyond maxSegments are deleted,
+ * oldest first.
+ *
+ * <p>Reopening a directory recovers the write position from the last segment, stopping at the first record whose
+ * checksum does not match: records survive a process restart, the tail the OS had not written back does not
+ * survive a machine crash.
+ */
+@Slf4j
+public class SegmentedJournal implements Closeable {
+
+    // int length, int crc32c of the payload
+    static final int HEADER_BYTES = 8;
+    private static final int ALIGNMENT = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final String SUFFIX = ".journal";
+    // the length is read and written with acquire/release, the rest of a record with plain accesses
+    private static final VarHandle LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final Scheduler scheduler;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final CopyOnWriteArraySet<Reader> readers = new CopyOnWriteArraySet<>();
+    private volatile long endOffset;
+    private volatile boolean closed;
+
+    public SegmentedJournal(Path directory, int segmentSize, int maxSegments) {
+        this(directory, segmentSize, maxSegments, Schedulers.parallel());
+    }
+
+    public SegmentedJournal(Path directory, int segmentSize, int maxSegments, Scheduler scheduler) {
+        if (segmentSize < 4096 || segmentSize % ALIGNMENT != 0) {
+            throw new IllegalArgumentException("segmentSize must be a multiple of " + ALIGNMENT + " of at least 4096, got " + segmentSize);
+        }
+        if (maxSegments < 2) {
+            throw new IllegalArgumentException("maxSegments must be at least 2, got " + maxSegments);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.scheduler = scheduler;
+        this.endOffset = open();
+    }
+
+    /**
+     * Appends the record built for the offset it is written at and returns that offset. The function may be called
+     * twice when the record rolls to a new segment.
+     */
+    public synchronized long append(LongFunction<byte[]> record) {
+        if (closed) {
+            throw new IllegalStateException("Journal " + directory + " is closed");
+        }
+        var offset = endOffset;
+        var payload = record.apply(offset);
+        if (position(offset) + recordSize(payload) > segmentSize) {
+            offset = roll(offset);
+            payload = record.apply(offset);
+        }
+        var size = recordSize(payload);
+        if (payload.length == 0 || size > segmentSize) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit a segment of " + segmentSize);
+        }
+        var buffer = segments.get(segmentNumber(offset));
+        var position = position(offset);
+        buffer.putInt(position + Integer.BYTES, checksum(payload));
+        buffer.put(position + HEADER_BYTES, payload);
+        // a torn record of an earlier run may follow, readers must stop here until the next append
+        if (position + size + HEADER_BYTES <= segmentSize) {
+            buffer.putInt(position + size, 0);
+        }
+        LENGTH.setRelease(buffer, position, payload.length);
+        endOffset = offset + size;
+        readers.forEach(reader -> reader.signal(true));
+        return offset;
+    }
+
+    /**
+     * The record at offset, null when nothing was appended there yet, or a gap entry when the offset was deleted.
+     */
+    public Entry read(long offset) {
+        while (true) {
+            var buffer = segments.get(segmentNumber(offset));
+            if (buffer == null) {
+                var startOffset = startOffset();
+                return offset < startOffset ? new Entry(offset, startOffset, null) : null;
+            }
+            var position = position(offset);
+            var length = position + HEADER_BYTES > segmentSize ? END_OF_SEGMENT : (int) LENGTH.getAcquire(buffer, position);
+            if (length == 0) {
+                return null;
+            }
+            if (length == END_OF_SEGMENT) {
+                offset = (segmentNumber(offset) + 1) * segmentSize;
+                continue;
+            }
+            return new Entry(offset, offset + align(HEADER_BYTES + length),
+                    buffer.slice(position + HEADER_BYTES, length).asReadOnlyBuffer());
+        }
+    }
+
+    /**
+     * Records after the one at the given offset, then records as they are appended. Without an offset only new
+     * records are delivered. An offset that was deleted, or that is not a record of this journal, starts with a
+     * gap entry followed by every retained record. Reading follows demand, a slow subscriber only falls behind.
+     */
+    public Flux<Entry> tail(Long after) {
+        return Flux.defer(() -> {
+            if (after == null) {
+                return readFrom(endOffset);
+            }
+            var entry = after < endOffset && isRecord(after) ? read(after) : null;
+            if (entry != null && !entry.isGap()) {
+                return readFrom(entry.nextOffset());
+            }
+            var startOffset = startOffset();
+            return readFrom(startOffset).startWith(new Entry(after, startOffset, null));
+        });
+    }
+
+    public long startOffset() {
+        return segments.firstKey() * segmentSize;
+    }
+
+    public long endOffset() {
+        return endOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    public int readerCount() {
+        return readers.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.values().forEach(MappedByteBuffer::force);
+        readers.forEach(reader -> reader.sink.complete());
+    }
+
+    private Flux<Entry> readFrom(long offset) {
+        return Flux.create(sink -> {
+            var reader = new Reader(offset, sink);
+            readers.add(reader);
+            sink.onDispose(() -> readers.remove(reader));
+            sink.onRequest(n -> reader.signal(false));
+            if (closed) {
+                sink.complete();
+            }
+        }, FluxSink.OverflowStrategy.ERROR);
+    }
+
+    private boolean isRecord(long offset) {
+        var buffer = segments.get(segmentNumber(offset));
+        var position = position(offset);
+        if (buffer == null || offset % ALIGNMENT != 0 || position + HEADER_BYTES > segmentSize) {
+            return false;
+        }
+        var length = (int) LENGTH.getAcquire(buffer, position);
+        if (length <= 0 || position + HEADER_BYTES + length > segmentSize) {
+            return false;
+        }
+        var payload = new byte[length];
+        buffer.get(position + HEADER_BYTES, payload);
+        return buffer.getInt(position + Integer.BYTES) == checksum(payload);
+    }
+
+    private long roll(long offset) {
+        var current = segments.get(segmentNumber(offset));
+        var next = segmentNumber(offset) + 1;
+        segments.put(next, map(next));
+        var position = position(offset);
+        if (position + Integer.BYTES <= segmentSize) {
+            LENGTH.setRelease(current, position, END_OF_SEGMENT);
+        }
+        deleteExpiredSegments();
+        log.debug("Journal {} rolled to segment {}", directory, next);
+        return next * segmentSize;
+    }
+
+    // readers still holding a deleted segment keep its mapping, a reader that gets there later sees a gap
+    private void deleteExpiredSegments() {
+        while (segments.size() > maxSegments) {
+            var oldest = segments.pollFirstEntry().getKey();
+            try {
+                Files.deleteIfExists(segmentPath(oldest));
+            } catch (IOException ex) {
+                log.warn("Failed to delete journal segment {}: {}", segmentPath(oldest), ex.getMessage());
+            }
+        }
+    }
+
+    private long open() {
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(SUFFIX))
+                        .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                        .sorted()
+                        .forEach(number -> segments.put(number, map(number)));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open journal " + directory, ex);
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, map(0));
+            return 0;
+        }
+        deleteExpiredSegments();
+        var number = segments.lastKey();
+        var endOffset = recover(number, segments.get(number));
+        log.info("Opened journal {} with {} segments, offsets {} to {}", directory, segments.size(), startOffset(), endOffset);
+        return endOffset;
+    }
+
+    private long recover(long number, MappedByteBuffer buffer) {
+        var position = 0;
+        while (position + HEADER_BYTES <= segmentSize) {
+            var length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            var payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (buffer.getInt(position + Integer.BYTES) != checksum(payload)) {
+                log.warn("Journal {} segment {} is truncated at {}, the record there is incomplete", directory, number, position);
+                break;
+            }
+            position += align(HEADER_BYTES + length);
+        }
+        if (position + HEADER_BYTES <= segmentSize && buffer.getInt(position) == END_OF_SEGMENT) {
+            // the next segment was lost, appends continue in a new one
+            segments.put(number + 1, map(number + 1));
+            return (number + 1) * segmentSize;
+        }
+        if (position + HEADER_BYTES <= segmentSize) {
+            buffer.putInt(position, 0);
+        }
+        return number * segmentSize + position;
+    }
+
+    private MappedByteBuffer map(long number) {
+        var path = segmentPath(number);
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() != 0 && channel.size() != segmentSize) {
+                throw new IllegalStateException("Journal segment " + path + " has " + channel.size()
+                        + " bytes, the journal is configured with segments of " + segmentSize);
+            }
+            // the mapping outlives the channel, a new file is extended (zero filled) to the segment size
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to map journal segment " + path, ex);
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%020d%s", number, SUFFIX));
+    }
+
+    private long segmentNumber(long offset) {
+        return offset / segmentSize;
+    }
+
+    private int position(long offset) {
+        return (int) (offset % segmentSize);
+    }
+
+    private static int recordSize(byte[] payload) {
+        return align(HEADER_BYTES + payload.length);
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static int checksum(byte[] payload) {
+        var crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A record and the offset of the one after it. A gap (no payload) stands for deleted records before nextOffset.
+     */
+    public record Entry(long offset, long nextOffset, ByteBuffer payload) {
+
+        public boolean isGap() {
+            return payload == null;
+        }
+    }
+
+    // reads are driven by demand and by appends, one drain at a time per subscriber
+    private final class Reader {
+
+        private final FluxSink<Entry> sink;
+        private final AtomicInteger wip = new AtomicInteger();
+        private long offset;
+
+        private Reader(long offset, FluxSink<Entry> sink) {
+            this.offset = offset;
+            this.sink = sink;
+        }
+
+        // appends drain on the scheduler so that subscribers do not slow down the writer
+        void signal(boolean async) {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            if (async) {
+                scheduler.schedule(this::drain);
+            } else {
+                drain();
+            }
+        }
+
+        private void drain() {
+            var missed = 1;
+            do {
+                try {
+                    while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                        var entry = read(offset);
+                        if (entry == null) {
+                            break;
+                        }
+                        offset = entry.nextOffset();
+                        sink.next(entry);
+                    }
+                } catch (RuntimeException ex) {
+                    sink.error(ex);
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.reactivespring.common.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks at startup that the indexes declared on the documents exist, since the repository queries turn into
+ * collection scans without them. Index creation by spring.data.mongodb.auto-index-creation runs in the background,
+ * so with it enabled a missing index is created here and waited for; without it (indexes managed outside the
+ * application) each missing index is logged. The documents are the @Document classes of the mapping context, the
+ * verifier is registered by {@link IndexVerifierAutoConfiguration} in every service using reactive MongoDB.
+ */
+@Slf4j
+public class IndexVerifier {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext;
+    private final IndexResolver indexResolver;
+    private final boolean autoIndexCreation;
+
+    @SuppressWarnings("unchecked")
+    public IndexVerifier(ReactiveMongoTemplate reactiveMongoTemplate,
+                         @Value("${spring.data.mongodb.auto-index-creation:false}") boolean autoIndexCreation) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.mappingContext = (MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty>)
+                reactiveMongoTemplate.getConverter().getMappingContext();
+        this.indexResolver = IndexResolver.create(mappingContext);
+        this.autoIndexCreation = autoIndexCreation;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verify() {
+        Flux.fromIterable(documents())
+                .concatMap(this::verify)
+                .subscribe(null, ex -> log.warn("Index verification failed: {}", ex.getMessage()));
+    }
+
+    /**
+     * Declared indexes of the document class that are missing from its collection.
+     */
+    public Flux<IndexDefinition> missingIndexes(Class<?> documentClass) {
+        return reactiveMongoTemplate.indexOps(documentClass).getIndexInfo()
+                .map(IndexVerifier::keys)
+                .collect(Collectors.toSet())
+                .flatMapMany(existing -> Flux.fromIterable(indexResolver.resolveIndexFor(documentClass))
+                        .filter(index -> !existing.contains(new ArrayList<>(index.getIndexKeys().entrySet())))
+                        .map(IndexDefinition.class::cast));
+    }
+
+    /**
+     * Logs, or with auto-index-creation creates, the declared indexes missing from the collection.
+     */
+    public Mono<Void> verify(Class<?> documentClass) {
+        var collection = reactiveMongoTemplate.getCollectionName(documentClass);
+        return missingIndexes(documentClass)
+                .concatMap(index -> {
+                    if (!autoIndexCreation) {
+                        log.warn("Index {} on {} is missing, queries that need it scan the collection", index.getIndexKeys(), collection);
+                        return Mono.empty();
+                    }
+                    log.info("Index {} on {} is missing, creating it", index.getIndexKeys(), collection);
+                    return reactiveMongoTemplate.indexOps(documentClass).ensureIndex(index);
+                })
+                .count()
+                .doOnNext(missing -> {
+                    if (missing == 0) {
+                        log.info("All declared indexes on {} are present", collection);
+                    }
+                })
+                .then();
+    }
+
+    // the collections of the application, not the types embedded in them
+    private List<Class<?>> documents() {
+        return mappingContext.getPersistentEntities().stream()
+                .filter(entity -> entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class))
+                .<Class<?>>map(MongoPersistentEntity::getType)
+                .toList();
+    }
+
+    // the key pattern in index order, {field: 1 | -1}
+    private static List<Map.Entry<String, Object>> keys(IndexInfo indexInfo) {
+        var keys = new Document();
+        indexInfo.getIndexFields().forEach(field -> keys.put(field.getKey(),
+                field.getDirection() == Sort.Direction.DESC ? -1 : 1));
+        return new ArrayList<>(keys.entrySet());
+    }
+}
@@ -0,0 +1,13 @@
+package com.reactivespring.common.repository;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+@AutoConfiguration(after = MongoReactiveDataAutoConfiguration.class)
+@ConditionalOnBean(ReactiveMongoTemplate.class)
+@Import(IndexVerifier.class)
+public class IndexVerifierAutoConfiguration {
+}
@@ -0,0 +1,95 @@
+package com.reactivespring.common.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Emits into a sink from any number of threads without losing events. A sink accepts one emitter at a time and
+ * answers a concurrent {@code tryEmitNext} with FAIL_NON_SERIALIZED instead of queueing the value, so writers
+ * here enqueue into a lock-free MPSC queue and whichever writer finds it idle drains it into the sink on behalf
+ * of the others. Should anything else hold the sink, the drain retries with a bounded busy spin. Events are
+ * counted as emitted, retried or dropped, the latter tagged with the emit result that caused it.
+ */
+@Slf4j
+public class SerializedEmitter<T> {
+
+    private final String name;
+    private final Sinks.Many<T> sink;
+    private final long maxSpinNanos;
+    private final MeterRegistry meterRegistry;
+    private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Counter emittedCounter;
+    private final Counter retriedCounter;
+
+    public SerializedEmitter(String name, Sinks.Many<T> sink, Duration maxSpin, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.sink = sink;
+        this.maxSpinNanos = maxSpin.toNanos();
+        this.meterRegistry = meterRegistry;
+        this.emittedCounter = Counter.builder("sink.events.emitted").tag("sink", name).register(meterRegistry);
+        this.retriedCounter = Counter.builder("sink.events.retried").tag("sink", name).register(meterRegistry);
+    }
+
+    public void emit(T value) {
+        queue.offer(value);
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        var missed = 1;
+        do {
+            T next;
+            while ((next = queue.poll()) != null) {
+                emitOne(next);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    public Flux<T> asFlux() {
+        return sink.asFlux();
+    }
+
+    private void emitOne(T value) {
+        long deadline = 0;
+        while (true) {
+            var result = sink.tryEmitNext(value);
+            if (result.isSuccess()) {
+                emittedCounter.increment();
+                return;
+            }
+            if (result == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+                var now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + maxSpinNanos;
+                } else if (now - deadline > 0) {
+                    dropped(result);
+                    return;
+                }
+                retriedCounter.increment();
+                Thread.onSpinWait();
+                continue;
+            }
+            dropped(result);
+            return;
+        }
+    }
+
+    private void dropped(Sinks.EmitResult result) {
+        // no subscriber is not a loss for a sink without replay, there was nobody to deliver to
+        if (result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.warn("Dropped an event on sink {}: {}", name, result);
+        }
+        Counter.builder("sink.events.dropped").tag("sink", name).tag("reason", result.name())
+                .register(meterRegistry)
+                .increment();
+    }
+}
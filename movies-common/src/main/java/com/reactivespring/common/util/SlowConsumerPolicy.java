@@ -0,0 +1,109 @@
+package com.reactivespring.common.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gives every subscriber of a hot stream its own bounded buffer, so a slow client can neither hold an unbounded
+ * backlog in the sink nor stall the others. On overflow the subscriber loses its oldest (DROP_OLDEST) or newest
+ * (DROP_LATEST) buffered event, or with DISCONNECT its stream is completed, discarding the buffer, once it has
+ * dropped more than maxDrops events. Lag is the number of events buffered for a subscriber and not yet written
+ * to it. Each service declares its policy as a bean configured from its own stream properties.
+ */
+@Slf4j
+public class SlowConsumerPolicy {
+
+    private final OverflowStrategy strategy;
+    private final int bufferSize;
+    private final int maxDrops;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StreamStats> streams = new ConcurrentHashMap<>();
+
+    public SlowConsumerPolicy(OverflowStrategy strategy, int bufferSize, int maxDrops, MeterRegistry meterRegistry) {
+        this.strategy = strategy;
+        this.bufferSize = bufferSize;
+        this.maxDrops = maxDrops;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Flux<T> apply(String stream, Flux<T> source) {
+        return apply(stream, source, strategy, maxDrops);
+    }
+
+    // for streams a client can resume, where ending the stream loses nothing but dropping an event would
+    public <T> Flux<T> disconnectOnOverflow(String stream, Flux<T> source) {
+        return apply(stream, source, OverflowStrategy.DISCONNECT, 0);
+    }
+
+    private <T> Flux<T> apply(String stream, Flux<T> source, OverflowStrategy strategy, int maxDrops) {
+        var stats = streams.computeIfAbsent(stream, name -> new StreamStats(name, strategy));
+        return Flux.defer(() -> {
+            var subscriber = new SubscriberLag();
+            var disconnect = Sinks.empty();
+            stats.subscribers.add(subscriber);
+            return source
+                    .doOnNext(value -> subscriber.pending.incrementAndGet())
+                    .onBackpressureBuffer(bufferSize, dropped -> {
+                        subscriber.pending.decrementAndGet();
+                        stats.dropped.increment();
+                        if (strategy == OverflowStrategy.DISCONNECT && subscriber.dropped.incrementAndGet() > maxDrops
+                                && disconnect.tryEmitEmpty().isSuccess()) {
+                            log.warn("Disconnecting a slow subscriber of stream {} after {} dropped events", stream, maxDrops + 1);
+                            stats.disconnects.increment();
+                        }
+                    }, strategy == OverflowStrategy.DROP_OLDEST ? BufferOverflowStrategy.DROP_OLDEST : BufferOverflowStrategy.DROP_LATEST)
+                    .doOnNext(value -> subscriber.pending.decrementAndGet())
+                    .takeUntilOther(disconnect.asMono())
+                    .doFinally(signalType -> stats.subscribers.remove(subscriber));
+        });
+    }
+
+    public enum OverflowStrategy {
+        DROP_OLDEST,
+        DROP_LATEST,
+        DISCONNECT
+    }
+
+    private static class SubscriberLag {
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+    }
+
+    private class StreamStats {
+        private final Set<SubscriberLag> subscribers = ConcurrentHashMap.newKeySet();
+        private final Counter dropped;
+        private final Counter disconnects;
+
+        private StreamStats(String stream, OverflowStrategy strategy) {
+            Gauge.builder("stream.subscribers", subscribers, Set::size)
+                    .tag("stream", stream)
+                    .register(meterRegistry);
+            Gauge.builder("stream.subscriber.lag.max", subscribers,
+                            all -> all.stream().mapToLong(subscriber -> subscriber.pending.get()).max().orElse(0))
+                    .tag("stream", stream)
+                    .description("Largest number of events buffered for a single subscriber")
+                    .register(meterRegistry);
+            Gauge.builder("stream.subscriber.lag.total", subscribers,
+                            all -> all.stream().mapToLong(subscriber -> subscriber.pending.get()).sum())
+                    .tag("stream", stream)
+                    .register(meterRegistry);
+            this.dropped = Counter.builder("stream.events.dropped")
+                    .tag("stream", stream)
+                    .tag("strategy", strategy.name())
+                    .register(meterRegistry);
+            this.disconnects = Counter.builder("stream.subscriber.disconnects")
+                    .tag("stream", stream)
+                    .register(meterRegistry);
+        }
+    }
+}
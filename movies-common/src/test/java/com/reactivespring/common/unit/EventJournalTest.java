@@ -0,0 +1,87 @@
+package com.reactivespring.common.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.common.journal.EventJournal;
+import com.reactivespring.common.journal.SegmentedJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static String text(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void eventsAreJournaledAsNdjsonLines() {
+        try (var journal = new TestJournal(new SegmentedJournal(directory, 4096, 2))) {
+            var lines = journal.stream(null, DefaultDataBufferFactory.sharedInstance).map(EventJournalTest::text);
+
+            StepVerifier.create(lines.take(2))
+                    .then(() -> {
+                        journal.publish("ADDED", Map.of("id", "a"));
+                        journal.publish(null, Map.of("id", "b"));
+                    })
+                    .assertNext(line -> assertTrue(line.matches("\\{\"offset\":\\d+,\"type\":\"ADDED\",\"event\":\\{\"id\":\"a\"}}\n")))
+                    .assertNext(line -> assertTrue(line.matches("\\{\"offset\":\\d+,\"event\":\\{\"id\":\"b\"}}\n")))
+                    .expectComplete()
+                    .verify(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void closeFinishesTheScheduledAppends() {
+        var appended = new AtomicInteger();
+        var segments = new SegmentedJournal(directory, 4096, 2) {
+            @Override
+            public synchronized long append(LongFunction<byte[]> record) {
+                appended.incrementAndGet();
+                return super.append(record);
+            }
+        };
+        var journal = new TestJournal(segments);
+        for (int i = 0; i < 20; i++) {
+            journal.publish("ADDED", Map.of("id", i));
+        }
+
+        journal.close();
+
+        assertEquals(20, appended.get());
+    }
+
+    @Test
+    void disabledJournalIgnoresEvents() {
+        try (var journal = new TestJournal(null)) {
+            journal.publish("ADDED", Map.of("id", "a"));
+
+            assertFalse(journal.isEnabled());
+        }
+    }
+
+    private static class TestJournal extends EventJournal<Map<String, Object>> {
+
+        TestJournal(SegmentedJournal journal) {
+            super("test", new ObjectMapper(), event -> event.get("id"), journal, new SimpleMeterRegistry());
+        }
+
+        void publish(String type, Map<String, Object> event) {
+            append(type, event);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.reactivespring.common.unit;
+
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.reactivespring.common.repository.IndexVerifier;
+import com.reactivespring.common.repository.IndexVerifierAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.annotation.ImportCandidates;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexVerifierAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(IndexVerifierAutoConfiguration.class));
+
+    @Test
+    void autoConfigurationIsListed() {
+        assertThat(ImportCandidates.load(AutoConfiguration.class, getClass().getClassLoader()))
+                .contains(IndexVerifierAutoConfiguration.class.getName());
+    }
+
+    @Test
+    void verifierIsRegisteredWithReactiveMongo() {
+        contextRunner
+                .withBean(ReactiveMongoTemplate.class, () -> new ReactiveMongoTemplate(MongoClients.create(), "test"))
+                .run(context -> assertThat(context).hasSingleBean(IndexVerifier.class));
+    }
+
+    @Test
+    void verifierIsNotRegisteredWithoutReactiveMongo() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(IndexVerifier.class));
+    }
+}
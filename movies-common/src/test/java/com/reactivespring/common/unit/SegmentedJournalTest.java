@@ -0,0 +1,131 @@
+package com.reactivespring.common.unit;
+
+import com.reactivespring.common.journal.SegmentedJournal;
+import com.reactivespring.common.journal.SegmentedJournal.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(Entry entry) {
+        return StandardCharsets.UTF_8.decode(entry.payload()).toString();
+    }
+
+    @Test
+    void appendedRecordsAreReadBackByOffset() {
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            var first = journal.append(offset -> bytes("first@" + offset));
+            var second = journal.append(offset -> bytes("second@" + offset));
+
+            var entry = journal.read(first);
+            assertEquals("first@" + first, text(entry));
+            assertEquals(second, entry.nextOffset());
+            assertEquals("second@" + second, text(journal.read(second)));
+            assertTrue(journal.read(second).payload().isReadOnly());
+            assertNull(journal.read(journal.endOffset()));
+        }
+    }
+
+    @Test
+    void fullSegmentsRollAndExpiredOnesAreDeleted() throws IOException {
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(offset -> new byte[200]);
+            }
+
+            assertEquals(2, journal.segmentCount());
+            try (var files = Files.list(directory)) {
+                assertEquals(2, files.count());
+            }
+            var gap = journal.read(0);
+            assertTrue(gap.isGap());
+            assertEquals(journal.startOffset(), gap.nextOffset());
+            StepVerifier.create(journal.tail(0L).take(2))
+                    .assertNext(entry -> assertTrue(entry.isGap()))
+                    .assertNext(entry -> assertEquals(journal.startOffset(), entry.offset()))
+                    .verifyComplete();
+        }
+    }
+
+    @Test
+    void reopenRecoversTheEndAndDropsATornRecord() throws IOException {
+        long second;
+        long third;
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            journal.append(offset -> bytes("first"));
+            second = journal.append(offset -> bytes("second"));
+            third = journal.append(offset -> bytes("third"));
+        }
+        // the checksum of the last record as if its payload never reached the disk
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (var channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), third + Integer.BYTES);
+        }
+
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            assertEquals(third, journal.endOffset());
+            StepVerifier.create(journal.tail(second))
+                    .then(() -> journal.append(offset -> bytes("fourth")))
+                    .assertNext(entry -> assertEquals("fourth", text(entry)))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void tailFollowsAppendsAtTheSubscribersDemand() {
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            journal.append(offset -> bytes("before"));
+
+            StepVerifier.create(journal.tail(null), 0)
+                    .then(() -> {
+                        journal.append(offset -> bytes("a"));
+                        journal.append(offset -> bytes("b"));
+                    })
+                    .expectNoEvent(Duration.ofMillis(100))
+                    .thenRequest(1)
+                    .assertNext(entry -> assertEquals("a", text(entry)))
+                    .thenRequest(1)
+                    .assertNext(entry -> assertEquals("b", text(entry)))
+                    .thenCancel()
+                    .verify(Duration.ofSeconds(5));
+            assertEquals(0, journal.readerCount());
+        }
+    }
+
+    @Test
+    void unknownPositionStartsWithAGap() {
+        try (var journal = new SegmentedJournal(directory, SEGMENT_SIZE, 2)) {
+            journal.append(offset -> bytes("a"));
+
+            StepVerifier.create(journal.tail(3L).take(2))
+                    .assertNext(entry -> assertTrue(entry.isGap()))
+                    .assertNext(entry -> assertEquals("a", text(entry)))
+                    .verifyComplete();
+        }
+    }
+}
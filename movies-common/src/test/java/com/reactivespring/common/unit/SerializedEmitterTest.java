@@ -0,0 +1,95 @@
+package com.reactivespring.common.unit;
+
+import com.reactivespring.common.util.SerializedEmitter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedEmitterTest {
+
+    private static final int WRITERS = 16;
+    private static final int EVENTS_PER_WRITER = 20_000;
+
+    @Test
+    void concurrentWritersLoseNoEvents() throws InterruptedException {
+        var meterRegistry = new SimpleMeterRegistry();
+        var emitter = new SerializedEmitter<>("test", Sinks.many().replay().<Integer>latest(), Duration.ofSeconds(1), meterRegistry);
+        var received = new AtomicLong();
+        var subscription = emitter.asFlux().subscribe(value -> received.incrementAndGet());
+        var start = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(WRITERS);
+
+        for (int writer = 0; writer < WRITERS; writer++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < EVENTS_PER_WRITER; i++) {
+                    emitter.emit(i);
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        subscription.dispose();
+
+        long total = WRITERS * EVENTS_PER_WRITER;
+        assertEquals(total, received.get());
+        assertEquals(total, meterRegistry.get("sink.events.emitted").counter().count());
+        assertNull(meterRegistry.find("sink.events.dropped").counter());
+    }
+
+    @Test
+    void sinkHeldByAnotherEmitterIsRetriedThenDropped() throws InterruptedException {
+        var meterRegistry = new SimpleMeterRegistry();
+        var sink = Sinks.many().replay().<Integer>latest();
+        var emitter = new SerializedEmitter<>("test", sink, Duration.ofMillis(5), meterRegistry);
+        var insideOnNext = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        sink.asFlux().subscribe(value -> {
+            if (value == 0) {
+                insideOnNext.countDown();
+                awaitQuietly(release);
+            }
+        });
+        // a direct emit on another thread holds the sink while its subscriber blocks
+        var holder = new Thread(() -> sink.tryEmitNext(0));
+        holder.start();
+        assertTrue(insideOnNext.await(5, TimeUnit.SECONDS));
+
+        emitter.emit(1);
+        release.countDown();
+        holder.join();
+
+        assertTrue(meterRegistry.get("sink.events.retried").counter().count() > 0);
+        assertEquals(1, meterRegistry.get("sink.events.dropped").tag("reason", "FAIL_NON_SERIALIZED").counter().count());
+    }
+
+    @Test
+    void eventsAreDroppedAndCountedWhenTheSinkIsTerminated() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var sink = Sinks.many().replay().<Integer>latest();
+        var emitter = new SerializedEmitter<>("test", sink, Duration.ofMillis(1), meterRegistry);
+        sink.tryEmitComplete();
+
+        emitter.emit(1);
+
+        assertEquals(1, meterRegistry.get("sink.events.dropped").tag("reason", "FAIL_TERMINATED").counter().count());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
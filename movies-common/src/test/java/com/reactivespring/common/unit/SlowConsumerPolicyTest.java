@@ -0,0 +1,71 @@
+package com.reactivespring.common.unit;
+
+import com.reactivespring.common.util.SlowConsumerPolicy;
+import com.reactivespring.common.util.SlowConsumerPolicy.OverflowStrategy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowConsumerPolicyTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void dropOldestKeepsTheNewestEvents() {
+        var policy = new SlowConsumerPolicy(OverflowStrategy.DROP_OLDEST, 3, 0, meterRegistry);
+        var source = Sinks.many().multicast().<Integer>directBestEffort();
+
+        StepVerifier.create(policy.apply("test", source.asFlux()), 0)
+                .then(() -> emitRange(source))
+                .then(() -> assertEquals(3, gauge("stream.subscriber.lag.max")))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(8, 9, 10)
+                .then(source::tryEmitComplete)
+                .verifyComplete();
+
+        assertEquals(7, meterRegistry.get("stream.events.dropped").counter().count());
+        assertEquals(0, gauge("stream.subscribers"));
+    }
+
+    @Test
+    void dropLatestKeepsTheOldestEvents() {
+        var policy = new SlowConsumerPolicy(OverflowStrategy.DROP_LATEST, 3, 0, meterRegistry);
+        var source = Sinks.many().multicast().<Integer>directBestEffort();
+
+        StepVerifier.create(policy.apply("test", source.asFlux()), 0)
+                .then(() -> emitRange(source))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNext(1, 2, 3)
+                .then(source::tryEmitComplete)
+                .verifyComplete();
+
+        assertEquals(7, meterRegistry.get("stream.events.dropped").counter().count());
+    }
+
+    @Test
+    void disconnectAfterMaxDrops() {
+        var policy = new SlowConsumerPolicy(OverflowStrategy.DISCONNECT, 3, 2, meterRegistry);
+        var source = Sinks.many().multicast().<Integer>directBestEffort();
+
+        // the source never completes, the policy ends the stream on the third drop and discards what was buffered
+        StepVerifier.create(policy.apply("test", source.asFlux()), 0)
+                .then(() -> emitRange(source))
+                .verifyComplete();
+
+        assertEquals(1, meterRegistry.get("stream.subscriber.disconnects").counter().count());
+        assertEquals(0, gauge("stream.subscribers"));
+    }
+
+    private static void emitRange(Sinks.Many<Integer> source) {
+        for (int i = 1; i <= 10; i++) {
+            source.tryEmitNext(i);
+        }
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("stream", "test").gauge().value();
+    }
+}
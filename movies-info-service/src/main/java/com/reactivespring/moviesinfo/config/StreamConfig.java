@@ -0,0 +1,12 @@
+package com.reactivespring.moviesinfo.config;
+
+import com.reactivespring.common.config.StreamConfigSupport;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StreamConfig extends StreamConfigSupport {
+
+    public StreamConfig() {
+        super("movies-info");
+    }
+}
@@ -1,27 +1,90 @@
 package com.reactivespring.moviesinfo.controller;
 
+import com.reactivespring.common.util.SerializedEmitter;
+import com.reactivespring.common.util.SlowConsumerPolicy;
 import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.exception.MovieInfoDataException;
 import com.reactivespring.moviesinfo.exception.MovieInfoNotfoundException;
+import com.reactivespring.moviesinfo.journal.MovieInfoJournal;
+import com.reactivespring.moviesinfo.repository.MovieInfoCursor;
+import com.reactivespring.moviesinfo.service.MovieInfoChangeStream;
 import com.reactivespring.moviesinfo.service.MoviesInfoService;
+import com.reactivespring.moviesinfo.util.ResumableStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Sinks;
 
+import java.time.Duration;
+
 @RestController
 @RequestMapping("/v1/movies-info")
 @Slf4j
-@RequiredArgsConstructor
 public class MoviesInfoController {
 
+    public static final String RESET_EVENT = "reset";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_LIMIT = 500;
+
     private final MoviesInfoService movieInfoService;
     Sinks.Many<MovieInfo> moviesInfoSink = Sinks.many().replay().latest();
+    private final SerializedEmitter<MovieInfo> moviesInfoEmitter;
+    private final ResumableStream<MovieInfo> moviesInfoStream;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final MovieInfoJournal movieInfoJournal;
+    private final MovieInfoChangeStream movieInfoChangeStream;
+    private final StreamSource streamSource;
+    private Disposable changeStreamSubscription;
+
+    public MoviesInfoController(MoviesInfoService movieInfoService,
+                                SlowConsumerPolicy slowConsumerPolicy,
+                                MovieInfoChangeStream movieInfoChangeStream,
+                                MovieInfoJournal movieInfoJournal,
+                                @Value("${movies-info.stream.source:LOCAL}") StreamSource streamSource,
+                                @Value("${movies-info.stream.maxEmitSpin:PT0.01S}") Duration maxEmitSpin,
+                                @Value("${movies-info.stream.resumeBufferSize:1024}") int resumeBufferSize,
+                                MeterRegistry meterRegistry) {
+        this.movieInfoService = movieInfoService;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.movieInfoJournal = movieInfoJournal;
+        this.movieInfoChangeStream = movieInfoChangeStream;
+        this.streamSource = streamSource;
+        this.moviesInfoEmitter = new SerializedEmitter<>("movies-info", moviesInfoSink, maxEmitSpin, meterRegistry);
+        this.moviesInfoStream = new ResumableStream<>(moviesInfoEmitter.asFlux(), resumeBufferSize);
+        log.info("Movie info stream source: {}", streamSource);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribeToChangeStream() {
+        if (streamSource != StreamSource.CHANGE_STREAM) {
+            return;
+        }
+        log.info("Subscribing to the movie info change stream");
+        // one change stream subscription per node, fanned out to local subscribers by the sink
+        changeStreamSubscription = movieInfoChangeStream.changes().subscribe(this::publish);
+    }
+
+    @PreDestroy
+    public void unsubscribeFromChangeStream() {
+        if (changeStreamSubscription != null) {
+            changeStreamSubscription.dispose();
+        }
+    }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,14 +92,42 @@ public class MoviesInfoController {
         //throw new MovieInfoNotfoundException("Movie not found");
         log.info("Adding movie information {}", movieInfo.toString());
         return this.movieInfoService.addMovie(movieInfo)
-                .doOnNext(savedInfo -> moviesInfoSink.tryEmitNext(savedInfo))
+                .doOnNext(this::emitLocalWrite)
                 .log();
     }
 
     @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<MovieInfo> getMoviesStream() {
         log.info("Retrieve Movie Stream...");
-        return moviesInfoSink.asFlux().log();
+        return slowConsumerPolicy.apply("movies-info", moviesInfoStream.subscribe(null).map(ResumableStream.Event::value))
+                .log();
+    }
+
+    // resumes after the Last-Event-ID header (or lastEventId parameter) from the recent events kept in memory, ids
+    // from another node or an earlier run of this one are not resumed from. A "reset" event tells the client that
+    // events were missed and cached movie info should be dropped. A slow client is disconnected rather than losing
+    // events, it resumes where it stopped.
+    @GetMapping(value = "/stream/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<MovieInfo>> getMoviesEventStream(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                                 @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        var lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        log.info("Retrieve Movie Event Stream after {}", lastEventId);
+        return slowConsumerPolicy.disconnectOnOverflow("movies-info-events", moviesInfoStream.subscribe(lastEventId))
+                .map(event -> event.isGap()
+                        ? ServerSentEvent.<MovieInfo>builder().id(moviesInfoStream.eventId(event)).event(RESET_EVENT).build()
+                        : ServerSentEvent.builder(event.value()).id(moviesInfoStream.eventId(event)).build());
+    }
+
+    // replays from the local journal after the offset of the last line received, reads follow the client's demand
+    // so a slow client falls behind in the journal instead of buffering or dropping events
+    @GetMapping(value = "/stream/journal", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> getMoviesJournalStream(@RequestParam(value = "after", required = false) Long after,
+                                                   ServerHttpResponse response) {
+        if (!movieInfoJournal.isEnabled()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "The movie info journal is not enabled"));
+        }
+        log.info("Retrieve Movie Journal Stream after {}", after);
+        return movieInfoJournal.stream(after, response.bufferFactory());
     }
 
     @GetMapping("/{movieId}")
@@ -48,19 +139,59 @@ public class MoviesInfoController {
                 .log();
     }
 
-    @GetMapping("/all")
-    public Flux<MovieInfo> getAllMoviesInfo(@RequestParam(required = false) Integer year) {
+    // without limit or after every movie info is streamed in id order (as NDJSON when accepted), fetched from MongoDB
+    // in cursorBatchSize batches as the client reads. With them a keyset page is returned, and the X-Next-Cursor
+    // header carries the after token of the next page when there is one.
+    @GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<MovieInfo>>> getAllMoviesInfo(@RequestParam(required = false) Integer year,
+                                                                  @RequestParam(required = false) String limit,
+                                                                  @RequestParam(required = false) String after) {
         log.info("Fetching all movies information. Year: {}", year);
-        if (year != null) {
-            return this.movieInfoService.getMovieInfoByYear(year).log();
+        if (limit == null && after == null) {
+            var movieInfos = year != null ? this.movieInfoService.getMovieInfoByYear(year) : this.movieInfoService.getAllMovies();
+            return Mono.just(ResponseEntity.ok(movieInfos));
         }
-        return this.movieInfoService.getAllMovies().log();
+        return Mono.fromCallable(() -> new PageRequest(year, after == null ? null : MovieInfoCursor.decode(after, year),
+                        limit == null ? 0 : parseLimit(limit)))
+                .flatMap(page -> {
+                    if (page.limit() == 0) {
+                        return Mono.just(ResponseEntity.ok(this.movieInfoService.getMovieInfoPage(page.year(), page.after(), 0)));
+                    }
+                    // one extra movie info tells whether there is a next page without a count query
+                    return this.movieInfoService.getMovieInfoPage(page.year(), page.after(), page.limit() + 1)
+                            .collectList()
+                            .map(movieInfos -> {
+                                var response = ResponseEntity.ok();
+                                if (movieInfos.size() > page.limit()) {
+                                    movieInfos = movieInfos.subList(0, page.limit());
+                                    response.header(NEXT_CURSOR_HEADER,
+                                            MovieInfoCursor.after(page.year(), movieInfos.get(movieInfos.size() - 1)).encode());
+                                }
+                                return response.body(Flux.fromIterable(movieInfos));
+                            });
+                });
+    }
+
+    private int parseLimit(String limit) {
+        try {
+            var value = Integer.parseInt(limit);
+            if (value >= 1 && value <= MAX_PAGE_LIMIT) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new MovieInfoDataException(String.format("limit must be between 1 and %d, got %s", MAX_PAGE_LIMIT, limit));
+    }
+
+    private record PageRequest(Integer year, MovieInfoCursor after, int limit) {
     }
 
     @PutMapping("/{movieId}")
     public Mono<ResponseEntity<MovieInfo>> updateMovieInfo(@PathVariable String movieId, @RequestBody MovieInfo movieInfo) {
         log.info("Updating movie information for movieId: {}", movieId);
         return this.movieInfoService.updateMovieInfo(movieId, movieInfo)
+                .doOnNext(this::emitLocalWrite)
                 .map(ResponseEntity.ok()::body)
                 .defaultIfEmpty(ResponseEntity.notFound().build())
                 //.switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
@@ -88,4 +219,21 @@ public class MoviesInfoController {
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()))
                 .log();
     }
+
+    // with the change stream as the source every write, local ones included, arrives through it
+    private void emitLocalWrite(MovieInfo movieInfo) {
+        if (streamSource == StreamSource.LOCAL) {
+            publish(movieInfo);
+        }
+    }
+
+    private void publish(MovieInfo movieInfo) {
+        movieInfoJournal.append(movieInfo);
+        moviesInfoEmitter.emit(movieInfo);
+    }
+
+    public enum StreamSource {
+        LOCAL,
+        CHANGE_STREAM
+    }
 }
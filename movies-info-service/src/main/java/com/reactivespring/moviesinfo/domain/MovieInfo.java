@@ -6,6 +6,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.validation.annotation.Validated;
 
@@ -18,12 +20,15 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+// findByYear, ordered by id within a year
+@CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
 @Validated
 public class MovieInfo {
 
     @Id
     private String movieInfoId;
     @NotBlank(message = "{movie.name.not.blank}")
+    @Indexed(name = "name")
     private String name;
     @NotNull
     @Positive(message = "{movie.year.not.negative}")
@@ -1,5 +1,6 @@
 package com.reactivespring.moviesinfo.exceptionhandler;
 
+import com.reactivespring.moviesinfo.exception.MovieInfoDataException;
 import com.reactivespring.moviesinfo.exception.MovieInfoNotfoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
@@ -31,4 +32,10 @@ public class GlobalErrorHandler {
         log.error("Exception caught in handleMovieInfoNotfoundException :  {} ", ex.getMessage(), ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
+
+    @ExceptionHandler(MovieInfoDataException.class)
+    public ResponseEntity<String> handleMovieInfoDataException(MovieInfoDataException ex) {
+        log.error("Exception caught in handleMovieInfoDataException :  {} ", ex.getMessage(), ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
 }
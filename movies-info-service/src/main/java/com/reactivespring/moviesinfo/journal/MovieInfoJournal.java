@@ -0,0 +1,33 @@
+package com.reactivespring.moviesinfo.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.common.journal.EventJournal;
+import com.reactivespring.common.journal.SegmentedJournal;
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Journal of the movie info stream, one {"offset":...,"event":{...}} line per saved movie info. Disabled unless
+ * movies-info.stream.journal.enabled is set.
+ */
+@Component
+public class MovieInfoJournal extends EventJournal<MovieInfo> {
+
+    public MovieInfoJournal(ObjectMapper objectMapper,
+                            @Value("${movies-info.stream.journal.enabled:false}") boolean enabled,
+                            @Value("${movies-info.stream.journal.directory:journal/movies-info}") Path directory,
+                            @Value("${movies-info.stream.journal.segmentSizeBytes:67108864}") int segmentSizeBytes,
+                            @Value("${movies-info.stream.journal.maxSegments:8}") int maxSegments,
+                            MeterRegistry meterRegistry) {
+        super("movies-info", objectMapper, MovieInfo::getMovieInfoId,
+                enabled ? new SegmentedJournal(directory, segmentSizeBytes, maxSegments) : null, meterRegistry);
+    }
+
+    public void append(MovieInfo movieInfo) {
+        append(null, movieInfo);
+    }
+}
@@ -0,0 +1,60 @@
+package com.reactivespring.moviesinfo.repository;
+
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.exception.MovieInfoDataException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset position of the last movie info on a page: the year filter it was read with and its id, encoded as an
+ * opaque URL-safe token. Each field is Base64 encoded on its own and the parts are joined with a character the
+ * URL-safe alphabet does not use, so an id may contain any character.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieInfoCursor {
+
+    private static final String SEPARATOR = ".";
+
+    private final Integer year;
+    private final String movieInfoId;
+
+    public static MovieInfoCursor after(Integer year, MovieInfo movieInfo) {
+        return new MovieInfoCursor(year, movieInfo.getMovieInfoId());
+    }
+
+    public String encode() {
+        return encodePart(year == null ? "" : year.toString()) + SEPARATOR + encodePart(movieInfoId);
+    }
+
+    public static MovieInfoCursor decode(String token, Integer year) {
+        try {
+            var parts = token.split(Pattern.quote(SEPARATOR), -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("cursor has " + parts.length + " parts");
+            }
+            var cursorYear = decodePart(parts[0]);
+            var movieInfoId = decodePart(parts[1]);
+            if (movieInfoId.isEmpty()
+                    || !Objects.equals(cursorYear.isEmpty() ? null : Integer.valueOf(cursorYear), year)) {
+                throw new IllegalArgumentException("cursor does not match the requested year");
+            }
+            return new MovieInfoCursor(year, movieInfoId);
+        } catch (IllegalArgumentException ex) {
+            throw new MovieInfoDataException(String.format("Invalid cursor: %s", token));
+        }
+    }
+
+    private static String encodePart(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+package com.reactivespring.moviesinfo.repository;
+
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import reactor.core.publisher.Flux;
+
+public interface MovieInfoPageRepository {
+
+    /**
+     * Movie infos of a year (or of all years when year is null) in id order, starting after the cursor when one is
+     * given. A limit of 0 means no limit. The server returns the matches in batches of batchSize per round trip.
+     */
+    Flux<MovieInfo> findPage(Integer year, MovieInfoCursor after, int limit, int batchSize);
+}
@@ -0,0 +1,44 @@
+package com.reactivespring.moviesinfo.repository;
+
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class MovieInfoPageRepositoryImpl implements MovieInfoPageRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    // served by the _id index, or by year_id with a year, so no page sorts or skips in memory
+    @Override
+    public Flux<MovieInfo> findPage(Integer year, MovieInfoCursor after, int limit, int batchSize) {
+        var criteria = new Criteria();
+        if (year != null) {
+            criteria.and("year").is(year);
+        }
+        if (after != null) {
+            criteria.andOperator(afterId(after.getMovieInfoId()));
+        }
+        var query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "movieInfoId"))
+                .limit(limit)
+                .cursorBatchSize(batchSize);
+        return reactiveMongoTemplate.find(query, MovieInfo.class);
+    }
+
+    // ids that are not ObjectIds are stored as strings, which sort before every ObjectId
+    private static Criteria afterId(String movieInfoId) {
+        if (ObjectId.isValid(movieInfoId)) {
+            return Criteria.where("movieInfoId").gt(movieInfoId);
+        }
+        return new Criteria().orOperator(
+                Criteria.where("movieInfoId").gt(movieInfoId),
+                Criteria.where("movieInfoId").type(JsonSchemaObject.Type.OBJECT_ID));
+    }
+}
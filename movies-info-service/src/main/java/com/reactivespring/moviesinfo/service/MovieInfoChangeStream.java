@@ -0,0 +1,135 @@
+package com.reactivespring.moviesinfo.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Movie info inserts and updates from the MongoDB change stream, so a node sees writes made through every node.
+ * The resume token of the last event is saved per node every tokenSaveInterval (and when the stream ends), and a
+ * restarted node resumes after it; events after the last save may be delivered twice. If the oplog no longer
+ * holds the saved position the token is discarded and the stream starts from now. A stream the server ends, after
+ * the collection was dropped or renamed, is reopened after its invalidate event.
+ */
+@Service
+@Slf4j
+public class MovieInfoChangeStream {
+
+    private static final String RESUME_TOKENS_COLLECTION = "streamResumeTokens";
+    // ChangeStreamHistoryLost and ChangeStreamFatalError, the saved position can never be resumed
+    private static final Set<Integer> HISTORY_LOST_CODES = Set.of(286, 280);
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final String nodeId;
+    private final Duration tokenSaveInterval;
+    private final Duration retryBackoff;
+
+    public MovieInfoChangeStream(ReactiveMongoTemplate reactiveMongoTemplate,
+                                 @Value("${movies-info.stream.changeStream.nodeId:local}") String nodeId,
+                                 @Value("${movies-info.stream.changeStream.tokenSaveInterval:PT1S}") Duration tokenSaveInterval,
+                                 @Value("${movies-info.stream.changeStream.retryBackoff:PT1S}") Duration retryBackoff) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.nodeId = nodeId;
+        this.tokenSaveInterval = tokenSaveInterval;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Flux<MovieInfo> changes() {
+        // a stream reopened after an error or an invalidate starts after the last event seen, the saved token may lag
+        var latestToken = new AtomicReference<BsonValue>();
+        return Flux.defer(() -> Mono.justOrEmpty(latestToken.get())
+                        .switchIfEmpty(loadResumeToken())
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .flatMapMany(resumeToken -> listen(resumeToken, latestToken)))
+                .onErrorResume(MovieInfoChangeStream::isHistoryLost, ex -> {
+                    log.warn("Movie info change stream cannot resume for node {}, starting from now: {}", nodeId, ex.getMessage());
+                    latestToken.set(null);
+                    return deleteResumeToken().thenMany(listen(Optional.empty(), latestToken));
+                })
+                .doOnError(ex -> log.warn("Movie info change stream failed, resuming: {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff).maxBackoff(Duration.ofSeconds(30)).transientErrors(true))
+                .repeatWhen(completions -> completions
+                        .doOnNext(count -> log.warn("Movie info change stream ended for node {}, reopening", nodeId))
+                        .delayElements(retryBackoff));
+    }
+
+    private Flux<MovieInfo> listen(Optional<BsonValue> resumeToken, AtomicReference<BsonValue> latestToken) {
+        log.info("Listening to the movie info change stream for node {}, resuming: {}", nodeId, resumeToken.isPresent());
+        var savedToken = new AtomicReference<BsonValue>(resumeToken.orElse(null));
+        var saves = Flux.interval(tokenSaveInterval)
+                .concatMap(tick -> saveResumeToken(latestToken.get(), savedToken))
+                .thenMany(Flux.<MovieInfo>empty());
+        var options = ChangeStreamOptions.builder()
+                .filter(Aggregation.newAggregation(
+                        Aggregation.match(Criteria.where("operationType")
+                                .in("insert", "update", "replace", "invalidate"))))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        // unlike resumeAfter, startAfter also accepts the token of an invalidate event
+        resumeToken.ifPresent(options::startAfter);
+        var collectionName = reactiveMongoTemplate.getCollectionName(MovieInfo.class);
+        return reactiveMongoTemplate.changeStream(collectionName, options.build(), MovieInfo.class)
+                .doOnNext(event -> latestToken.set(event.getResumeToken()))
+                // an invalidate event has no body, only its token is kept
+                .mapNotNull(ChangeStreamEvent::getBody)
+                // the saves end with the change stream, which the server may complete
+                .publish(changes -> changes.mergeWith(saves.takeUntilOther(changes.ignoreElements())))
+                .doFinally(signalType -> saveResumeToken(latestToken.get(), savedToken).subscribe());
+    }
+
+    private Mono<BsonValue> loadResumeToken() {
+        return reactiveMongoTemplate.findById(nodeId, Document.class, RESUME_TOKENS_COLLECTION)
+                .mapNotNull(document -> document.get("token", Document.class))
+                .map(token -> BsonDocument.parse(token.toJson()));
+    }
+
+    private Mono<Void> saveResumeToken(BsonValue token, AtomicReference<BsonValue> savedToken) {
+        if (token == null || Objects.equals(token, savedToken.get())) {
+            return Mono.empty();
+        }
+        var update = Update.update("token", Document.parse(token.asDocument().toJson())).set("updatedAt", Instant.now());
+        return reactiveMongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)), update, RESUME_TOKENS_COLLECTION)
+                .doOnSuccess(result -> savedToken.set(token))
+                .onErrorResume(ex -> {
+                    log.warn("Failed to save the movie info change stream resume token of node {}: {}", nodeId, ex.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> deleteResumeToken() {
+        return reactiveMongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId)), RESUME_TOKENS_COLLECTION).then();
+    }
+
+    private static boolean isHistoryLost(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && HISTORY_LOST_CODES.contains(mongoException.getCode())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,9 +1,10 @@
 package com.reactivespring.moviesinfo.service;
 
 import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.repository.MovieInfoCursor;
 import com.reactivespring.moviesinfo.repository.MovieInfoRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -12,10 +13,16 @@ import java.util.logging.Logger;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class MoviesInfoService {
 
     private final MovieInfoRepository movieInfoRepository;
+    private final int cursorBatchSize;
+
+    public MoviesInfoService(MovieInfoRepository movieInfoRepository,
+                             @Value("${movies-info.all.cursorBatchSize:500}") int cursorBatchSize) {
+        this.movieInfoRepository = movieInfoRepository;
+        this.cursorBatchSize = cursorBatchSize;
+    }
 
     public Mono<MovieInfo> addMovie(MovieInfo movieInfo) {
         log.info("Adding movie information {}", movieInfo.toString());
@@ -24,7 +31,7 @@ public class MoviesInfoService {
 
     public Flux<MovieInfo> getAllMovies() {
         log.info("Fetching all movies information");
-        return this.movieInfoRepository.findAll();
+        return this.movieInfoRepository.findPage(null, null, 0, cursorBatchSize);
     }
 
     public Mono<MovieInfo> getMovieInfoById(String movieId) {
@@ -51,7 +58,15 @@ public class MoviesInfoService {
 
     public Flux<MovieInfo> getMovieInfoByYear(Integer year) {
         log.info("Fetching movie information for year: {}", year);
-        return this.movieInfoRepository.findByYear(year);
+        return this.movieInfoRepository.findPage(year, null, 0, cursorBatchSize);
+    }
+
+    /**
+     * Movie infos after the cursor in id order, optionally of one year. A limit of 0 returns the rest.
+     */
+    public Flux<MovieInfo> getMovieInfoPage(Integer year, MovieInfoCursor after, int limit) {
+        log.info("Fetching a page of {} movies information after {}. Year: {}", limit, after == null ? null : after.getMovieInfoId(), year);
+        return this.movieInfoRepository.findPage(year, after, limit, limit == 0 ? cursorBatchSize : Math.min(limit, cursorBatchSize));
     }
 
     public Mono<MovieInfo> getMovieInfoByName(String name) {
@@ -0,0 +1,115 @@
+package com.reactivespring.moviesinfo.util;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+/**
+ * Numbers the events of a hot stream and keeps the most recent ones in a ring buffer, so a subscriber that
+ * reconnects with the id of the last event it saw gets everything after it, then the live events, with no gap
+ * or duplicate in between. Event ids are sequence numbers qualified by the epoch of this stream, an id drawn at
+ * creation, so an id issued by another node or before a restart is never taken for a position here. When a
+ * position is no longer retained (or comes from another epoch) the stream opens with a gap marker, an event
+ * without a value, and continues from the oldest retained event.
+ */
+public class ResumableStream<T> {
+
+    private static final char EPOCH_SEPARATOR = '-';
+
+    private final String epoch;
+    private final Event<T>[] ring;
+    private final Sinks.Many<Event<T>> live = Sinks.many().multicast().directBestEffort();
+    private long lastId;
+    private int size;
+
+    public ResumableStream(Flux<T> source, int capacity) {
+        this(source, capacity, Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36));
+    }
+
+    @SuppressWarnings("unchecked")
+    public ResumableStream(Flux<T> source, int capacity, String epoch) {
+        this.epoch = epoch;
+        this.ring = new Event[capacity];
+        source.subscribe(this::append);
+    }
+
+    /**
+     * Events after {@code lastEventId} followed by live events, or the latest event followed by live events when
+     * {@code lastEventId} is null.
+     */
+    public Flux<Event<T>> subscribe(String lastEventId) {
+        return Flux.defer(() -> {
+            // live events are queued from before the history snapshot, those already in it are skipped below
+            var pending = Sinks.many().unicast().<Event<T>>onBackpressureBuffer();
+            var liveSubscription = live.asFlux()
+                    .subscribe(pending::tryEmitNext, pending::tryEmitError, pending::tryEmitComplete);
+            var history = new ArrayList<Event<T>>();
+            long snapshotId;
+            synchronized (ring) {
+                snapshotId = lastId;
+                var oldestId = lastId - size + 1;
+                var fromId = lastEventId == null ? lastId : position(lastEventId) + 1;
+                if (lastEventId != null && (fromId < oldestId || fromId > lastId + 1)) {
+                    fromId = oldestId;
+                    history.add(new Event<>(oldestId - 1, null));
+                }
+                for (var id = Math.max(fromId, oldestId); id <= lastId; id++) {
+                    history.add(ring[index(id)]);
+                }
+            }
+            return Flux.fromIterable(history)
+                    .concatWith(pending.asFlux().filter(event -> event.id() > snapshotId))
+                    .doFinally(signalType -> liveSubscription.dispose());
+        });
+    }
+
+    /**
+     * The id sent to subscribers for the event, the one they resume with.
+     */
+    public String eventId(Event<T> event) {
+        return epoch + EPOCH_SEPARATOR + event.id();
+    }
+
+    public long lastId() {
+        synchronized (ring) {
+            return lastId;
+        }
+    }
+
+    // the source delivers serially, so this is the only thread emitting into the live sink
+    private void append(T value) {
+        Event<T> event;
+        synchronized (ring) {
+            event = new Event<>(++lastId, value);
+            ring[index(lastId)] = event;
+            size = Math.min(size + 1, ring.length);
+        }
+        live.tryEmitNext(event);
+    }
+
+    // the sequence number of an event id of this epoch, -1 (before any retained event) for any other id
+    private long position(String eventId) {
+        var separator = eventId.lastIndexOf(EPOCH_SEPARATOR);
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private int index(long id) {
+        return (int) Math.floorMod(id, (long) ring.length);
+    }
+
+    public record Event<T>(long id, T value) {
+
+        public boolean isGap() {
+            return value == null;
+        }
+    }
+}
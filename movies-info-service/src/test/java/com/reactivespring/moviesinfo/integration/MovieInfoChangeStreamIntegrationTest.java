@@ -0,0 +1,91 @@
+package com.reactivespring.moviesinfo.integration;
+
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.repository.MovieInfoRepository;
+import com.reactivespring.moviesinfo.service.MovieInfoChangeStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "movies-info.stream.source=CHANGE_STREAM",
+        "movies-info.stream.changeStream.nodeId=test-node",
+        "movies-info.stream.changeStream.tokenSaveInterval=PT0.1S"})
+@ActiveProfiles("test")
+@AutoConfigureWebTestClient
+class MovieInfoChangeStreamIntegrationTest extends AbstractMongodbBaseTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private static MovieInfo movieInfo(String name) {
+        return new MovieInfo(null, name, 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15));
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    @Test
+    void streamSeesWritesThatBypassThisNode() {
+        var stream = webTestClient.get()
+                .uri("/v1/movies-info/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        // written straight to the repository, as another node would
+        StepVerifier.create(stream.filter(movieInfo -> movieInfo.getName().equals("Batman Begins")))
+                .then(() -> movieInfoRepository.save(movieInfo("Batman Begins"))
+                        .delaySubscription(Duration.ofMillis(500))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribe())
+                .expectNextCount(1)
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void restartedNodeResumesAfterItsSavedToken() throws InterruptedException {
+        // a node id of its own, the application's subscription keeps saving tokens under test-node
+        var movieInfoChangeStream = new MovieInfoChangeStream(reactiveMongoTemplate, "resume-test",
+                Duration.ofMillis(100), Duration.ofMillis(100));
+
+        StepVerifier.create(movieInfoChangeStream.changes().map(MovieInfo::getName))
+                .then(() -> movieInfoRepository.save(movieInfo("The Dark Knight"))
+                        .delaySubscription(Duration.ofMillis(500))
+                        .subscribe())
+                .expectNext("The Dark Knight")
+                .thenAwait(Duration.ofMillis(500))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+        Thread.sleep(500);
+
+        // written while this subscriber was down
+        movieInfoRepository.save(movieInfo("The Dark Knight Rises")).block();
+
+        StepVerifier.create(movieInfoChangeStream.changes().map(MovieInfo::getName))
+                .expectNext("The Dark Knight Rises")
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+}
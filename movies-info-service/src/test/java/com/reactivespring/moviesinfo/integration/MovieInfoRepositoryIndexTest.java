@@ -0,0 +1,111 @@
+package com.reactivespring.moviesinfo.integration;
+
+import com.reactivespring.common.repository.IndexVerifier;
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.repository.MovieInfoRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(IndexVerifier.class)
+class MovieInfoRepositoryIndexTest extends AbstractMongodbBaseTest {
+
+    @Autowired
+    private MovieInfoRepository movieInfoRepository;
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired
+    private IndexVerifier indexVerifier;
+
+    @BeforeEach
+    void setUp() {
+        // auto-index-creation runs in the background, verify waits for the indexes
+        indexVerifier.verify(MovieInfo.class).block();
+        movieInfoRepository.saveAll(List.of(
+                new MovieInfo(null, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15)),
+                new MovieInfo(null, "The Dark Knight", 2008, List.of("Christian Bale"), LocalDate.of(2008, 7, 18)),
+                new MovieInfo(null, "The Dark Knight Rises", 2012, List.of("Christian Bale"), LocalDate.of(2012, 7, 20))
+        )).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        movieInfoRepository.deleteAll().block();
+    }
+
+    // the plan stages of the winning plan, nested stages included
+    private static List<String> winningStages(Document explain) {
+        var stages = new ArrayList<String>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+        return stages;
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.containsKey("stage")) {
+                stages.add(document.getString("stage"));
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private Document explain(Query query) {
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(MovieInfo.class))
+                .flatMap(collection -> Mono.from(collection.find(query.getQueryObject()).sort(query.getSortObject()).explain()))
+                .block();
+    }
+
+    @Test
+    void declaredIndexesExist() {
+        StepVerifier.create(indexVerifier.missingIndexes(MovieInfo.class))
+                .verifyComplete();
+    }
+
+    @Test
+    void findByYearUsesTheYearIndex() {
+        StepVerifier.create(movieInfoRepository.findByYear(2005))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // the filter findByYear derives, ordered by id as the year index is
+        var stages = winningStages(explain(Query.query(Criteria.where("year").is(2005)).with(Sort.by("_id"))));
+
+        assertTrue(stages.contains("IXSCAN"), stages.toString());
+        assertFalse(stages.contains("COLLSCAN"), stages.toString());
+        assertFalse(stages.contains("SORT"), stages.toString());
+    }
+
+    @Test
+    void findMovieByNameUsesTheNameIndex() {
+        StepVerifier.create(movieInfoRepository.findMovieByName("The Dark Knight"))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // the filter findMovieByName derives
+        var stages = winningStages(explain(Query.query(Criteria.where("name").is("The Dark Knight"))));
+
+        assertTrue(stages.contains("IXSCAN"), stages.toString());
+        assertFalse(stages.contains("COLLSCAN"), stages.toString());
+    }
+}
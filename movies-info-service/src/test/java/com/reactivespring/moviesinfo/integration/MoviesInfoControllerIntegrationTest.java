@@ -1,5 +1,6 @@
 package com.reactivespring.moviesinfo.integration;
 
+import com.reactivespring.moviesinfo.controller.MoviesInfoController;
 import com.reactivespring.moviesinfo.domain.MovieInfo;
 import com.reactivespring.moviesinfo.repository.MovieInfoRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -9,13 +10,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.test.StepVerifier;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -92,6 +96,53 @@ class MoviesInfoControllerIntegrationTest extends AbstractMongodbBaseTest {
         assertEquals(3, moviesInfoResponse.size());
     }
 
+    @Test
+    void getAllMoviesInfoPagesTest() {
+        //given: ids that are not ObjectIds are stored as strings and come first
+        this.movieInfoRepository.save(new MovieInfo("abc", "Dark Knight Rises", 2012, List.of("Christian Bale"),
+                LocalDate.of(2012, 7, 20))).block();
+        var names = new ArrayList<String>();
+        String after = null;
+
+        //when
+        do {
+            var uri = UriComponentsBuilder.fromUriString(MOVIES_INFO_URL + "/all").queryParam("limit", 3);
+            if (after != null) {
+                uri.queryParam("after", after);
+            }
+            var result = webTestClient.get()
+                    .uri(uri.build().toUri())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBodyList(MovieInfo.class)
+                    .returnResult();
+            result.getResponseBody().forEach(movieInfo -> names.add(movieInfo.getName()));
+            after = result.getResponseHeaders().getFirst(MoviesInfoController.NEXT_CURSOR_HEADER);
+        } while (after != null);
+
+        //then
+        assertEquals(4, names.size());
+        assertEquals("Dark Knight Rises", names.get(0));
+        assertEquals(Set.of("Batman Begins", "The Dark Knight", "The Dark Knight Rises"), Set.copyOf(names.subList(1, 4)));
+    }
+
+    @Test
+    void getAllMoviesInfoByYearNdjsonTest() {
+        //when
+        var movieInfos = webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?year=2008")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        //then
+        StepVerifier.create(movieInfos.map(MovieInfo::getName))
+                .expectNext("The Dark Knight")
+                .verifyComplete();
+    }
+
     @Test
     void getAllMoviesInfoByYearTest() {
         //given
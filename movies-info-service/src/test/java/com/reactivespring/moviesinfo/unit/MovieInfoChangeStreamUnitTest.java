@@ -0,0 +1,72 @@
+package com.reactivespring.moviesinfo.unit;
+
+import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.service.MovieInfoChangeStream;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class MovieInfoChangeStreamUnitTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+    private final MovieInfoChangeStream changeStream = new MovieInfoChangeStream(reactiveMongoTemplate, "test-node",
+            Duration.ofMillis(10), Duration.ofMillis(10));
+
+    @BeforeEach
+    void setUp() {
+        when(reactiveMongoTemplate.getCollectionName(MovieInfo.class)).thenReturn("movieInfo");
+        when(reactiveMongoTemplate.findById(eq("test-node"), eq(Document.class), anyString())).thenReturn(Mono.empty());
+        when(reactiveMongoTemplate.upsert(any(Query.class), any(UpdateDefinition.class), anyString())).thenReturn(Mono.empty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamEvent<MovieInfo> event(String token, String name) {
+        var event = (ChangeStreamEvent<MovieInfo>) mock(ChangeStreamEvent.class);
+        when(event.getResumeToken()).thenReturn(new BsonDocument("_data", new BsonString(token)));
+        when(event.getBody()).thenReturn(name == null ? null
+                : new MovieInfo(null, name, 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15)));
+        return event;
+    }
+
+    @Test
+    void streamEndedByTheServerIsReopenedAfterItsInvalidateEvent() {
+        // the server completes the first stream after the invalidate event of a dropped collection
+        var firstStream = Flux.just(event("1", "Batman Begins"), event("2", null));
+        var secondStream = Flux.just(event("3", "The Dark Knight")).concatWith(Flux.never());
+        when(reactiveMongoTemplate.changeStream(eq("movieInfo"), any(ChangeStreamOptions.class), eq(MovieInfo.class)))
+                .thenReturn(firstStream, secondStream);
+
+        StepVerifier.create(changeStream.changes().map(MovieInfo::getName))
+                .expectNext("Batman Begins", "The Dark Knight")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        var options = ArgumentCaptor.forClass(ChangeStreamOptions.class);
+        verify(reactiveMongoTemplate, times(2)).changeStream(eq("movieInfo"), options.capture(), eq(MovieInfo.class));
+        var reopened = options.getAllValues().get(1);
+        assertTrue(reopened.isStartAfter());
+        assertEquals(new BsonDocument("_data", new BsonString("2")), reopened.getResumeToken().orElseThrow());
+    }
+}
@@ -1,8 +1,15 @@
 package com.reactivespring.moviesinfo.unit;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.moviesinfo.config.StreamConfig;
 import com.reactivespring.moviesinfo.controller.MoviesInfoController;
 import com.reactivespring.moviesinfo.domain.MovieInfo;
+import com.reactivespring.moviesinfo.journal.MovieInfoJournal;
+import com.reactivespring.moviesinfo.repository.MovieInfoCursor;
+import com.reactivespring.moviesinfo.service.MovieInfoChangeStream;
 import com.reactivespring.moviesinfo.service.MoviesInfoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -10,27 +17,44 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-@WebFluxTest(controllers = MoviesInfoController.class)
+@WebFluxTest(controllers = MoviesInfoController.class, properties = {
+        "movies-info.stream.journal.enabled=true",
+        "movies-info.stream.journal.directory=${java.io.tmpdir}/movies-info-journal-${random.uuid}"})
 @AutoConfigureWebTestClient
+@Import({SimpleMeterRegistry.class, StreamConfig.class, MovieInfoJournal.class})
 //@ContextConfiguration(classes = MoviesInfoController.class)
 @Slf4j
 public class MoviesInfoControllerUnitTest {
     @Autowired
     private WebTestClient webTestClient;
+    @Autowired
+    private ObjectMapper objectMapper;
     @MockBean
     private MoviesInfoService moviesInfoService;
+    @MockBean
+    private MovieInfoChangeStream movieInfoChangeStream;
 
     private static final String MOVIES_INFO_URL = "/v1/movies-info";
 
@@ -57,6 +81,93 @@ public class MoviesInfoControllerUnitTest {
         assertEquals(3, response.size());
     }
 
+    @Test
+    void getAllMoviesPageTest() {
+        //given: the page of 2 is read with one extra movie info
+        when(moviesInfoService.getMovieInfoPage(eq(2005), isNull(), eq(3))).thenReturn(Flux.just(
+                new MovieInfo("a", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15)),
+                new MovieInfo("b", "Sin City", 2005, List.of("Bruce Willis"), LocalDate.of(2005, 4, 1)),
+                new MovieInfo("c", "Serenity", 2005, List.of("Nathan Fillion"), LocalDate.of(2005, 9, 30))
+        ));
+
+        //when
+        var result = webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?year=2005&limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(MovieInfo.class)
+                .hasSize(2)
+                .returnResult();
+
+        //then
+        var cursor = MovieInfoCursor.decode(result.getResponseHeaders().getFirst(MoviesInfoController.NEXT_CURSOR_HEADER), 2005);
+        assertEquals("b", cursor.getMovieInfoId());
+
+        when(moviesInfoService.getMovieInfoPage(eq(2005), isA(MovieInfoCursor.class), eq(3))).thenReturn(Flux.just(
+                new MovieInfo("c", "Serenity", 2005, List.of("Nathan Fillion"), LocalDate.of(2005, 9, 30))
+        ));
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?year=2005&limit=2&after={after}", cursor.encode())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(MoviesInfoController.NEXT_CURSOR_HEADER)
+                .expectBodyList(MovieInfo.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void movieInfoCursorRoundTripsAnyIdTest() {
+        var cursor = MovieInfoCursor.decode(new MovieInfoCursor(2005, "a|b.c").encode(), 2005);
+
+        assertEquals(2005, cursor.getYear());
+        assertEquals("a|b.c", cursor.getMovieInfoId());
+        assertEquals("b", MovieInfoCursor.decode(new MovieInfoCursor(null, "b").encode(), null).getMovieInfoId());
+    }
+
+    @Test
+    void getAllMoviesPageValidationTest() {
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("limit must be between 1 and 500, got 0");
+
+        // a cursor read without a year filter does not continue a year
+        var cursor = new MovieInfoCursor(null, "b").encode();
+        webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?year=2005&limit=2&after={after}", cursor)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Invalid cursor: " + cursor);
+    }
+
+    @Test
+    void getAllMoviesNdjsonTest() {
+        //given
+        when(moviesInfoService.getMovieInfoByYear(2005)).thenReturn(Flux.just(
+                new MovieInfo("a", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15)),
+                new MovieInfo("b", "Sin City", 2005, List.of("Bruce Willis"), LocalDate.of(2005, 4, 1))
+        ));
+
+        //when
+        var movieInfos = webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/all?year=2005")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(MovieInfo.class)
+                .getResponseBody();
+
+        //then
+        StepVerifier.create(movieInfos.map(MovieInfo::getName))
+                .expectNext("Batman Begins", "Sin City")
+                .verifyComplete();
+        verify(moviesInfoService).getMovieInfoByYear(2005);
+    }
+
     @Test
     void getMovieInfoByIdTest() {
         //given
@@ -176,4 +287,86 @@ public class MoviesInfoControllerUnitTest {
                 .exchange()
                 .expectStatus().isNoContent();
     }
+
+    @Test
+    void resumeEventStreamFromUnknownIdTest() {
+        //given
+        var movieInfo = new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale", "Michael Caine"),
+                LocalDate.of(2005, 6, 15));
+        when(moviesInfoService.addMovie(isA(MovieInfo.class))).thenReturn(Mono.just(movieInfo));
+        webTestClient.post()
+                .uri(MOVIES_INFO_URL)
+                .bodyValue(movieInfo)
+                .exchange()
+                .expectStatus().isCreated();
+
+        //when
+        var events = webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/stream/events")
+                .header("Last-Event-ID", "1")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfo>>() {
+                })
+                .getResponseBody();
+
+        //then
+        StepVerifier.create(events)
+                .assertNext(event -> assertEquals(MoviesInfoController.RESET_EVENT, event.event()))
+                .assertNext(event -> {
+                    assertNotNull(event.id());
+                    assertEquals("Batman Begins", event.data().getName());
+                })
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void journalStreamResumesAfterOffsetTest() {
+        //given
+        var batmanBegins = new MovieInfo("1", "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15));
+        var darkKnight = new MovieInfo("2", "The Dark Knight", 2008, List.of("Christian Bale"), LocalDate.of(2008, 7, 18));
+        when(moviesInfoService.addMovie(isA(MovieInfo.class))).thenReturn(Mono.just(batmanBegins), Mono.just(darkKnight));
+        webTestClient.post().uri(MOVIES_INFO_URL).bodyValue(batmanBegins).exchange().expectStatus().isCreated();
+
+        //when: an offset that is not a record replays everything retained after a reset line
+        var replay = journalStream("1")
+                .skipUntil(line -> line.contains("Batman Begins"))
+                .next()
+                .block(Duration.ofSeconds(5));
+        assertNotNull(replay);
+        var batmanOffset = readTree(replay).get("offset").asLong();
+        StepVerifier.create(journalStream("1").next())
+                .expectNext("{\"reset\":true}")
+                .verifyComplete();
+        webTestClient.post().uri(MOVIES_INFO_URL).bodyValue(darkKnight).exchange().expectStatus().isCreated();
+
+        //then
+        StepVerifier.create(journalStream(String.valueOf(batmanOffset)).next())
+                .assertNext(line -> {
+                    var event = readTree(line);
+                    assertTrue(event.get("offset").asLong() > batmanOffset);
+                    assertEquals("The Dark Knight", event.get("event").get("name").asText());
+                })
+                .verifyComplete();
+    }
+
+    private Flux<String> journalStream(String after) {
+        return webTestClient.get()
+                .uri(MOVIES_INFO_URL + "/stream/journal?after=" + after)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody();
+    }
+
+    private JsonNode readTree(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
 }
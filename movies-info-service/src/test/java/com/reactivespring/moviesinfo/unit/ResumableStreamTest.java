@@ -0,0 +1,93 @@
+package com.reactivespring.moviesinfo.unit;
+
+import com.reactivespring.moviesinfo.util.ResumableStream;
+import com.reactivespring.moviesinfo.util.ResumableStream.Event;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResumableStreamTest {
+
+    private final Sinks.Many<String> source = Sinks.many().multicast().directBestEffort();
+    private final ResumableStream<String> stream = new ResumableStream<>(source.asFlux(), 3, "epoch");
+
+    private void emit(String... values) {
+        for (var value : values) {
+            source.tryEmitNext(value);
+        }
+    }
+
+    @Test
+    void newSubscriberGetsTheLatestEventThenLiveEvents() {
+        emit("a", "b");
+
+        StepVerifier.create(stream.subscribe(null))
+                .expectNext(new Event<>(2, "b"))
+                .then(() -> emit("c"))
+                .expectNext(new Event<>(3, "c"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resumeReplaysEverythingAfterTheLastEventId() {
+        emit("a", "b", "c");
+
+        StepVerifier.create(stream.subscribe("epoch-1"))
+                .expectNext(new Event<>(2, "b"), new Event<>(3, "c"))
+                .then(() -> emit("d"))
+                .expectNext(new Event<>(4, "d"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void resumeAtTheLatestEventOnlyGetsLiveEvents() {
+        emit("a", "b");
+
+        StepVerifier.create(stream.subscribe("epoch-2"))
+                .then(() -> emit("c"))
+                .expectNext(new Event<>(3, "c"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void evictedPositionStartsWithAGapMarker() {
+        emit("a", "b", "c", "d", "e");
+
+        StepVerifier.create(stream.subscribe("epoch-1"))
+                .expectNext(new Event<>(2, null), new Event<>(3, "c"), new Event<>(4, "d"), new Event<>(5, "e"))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void positionAheadOfTheStreamIsAGap() {
+        emit("a");
+
+        StepVerifier.create(stream.subscribe("epoch-42"))
+                .expectNextMatches(Event::isGap)
+                .expectNext(new Event<>(1, "a"))
+                .thenCancel()
+                .verify();
+        assertEquals(1, stream.lastId());
+    }
+
+    @Test
+    void positionFromAnotherEpochIsAGap() {
+        emit("a", "b");
+        var restarted = new ResumableStream<>(source.asFlux(), 3, "restarted");
+        emit("c");
+
+        // the same sequence number means a different event after a restart or on another node
+        StepVerifier.create(restarted.subscribe("epoch-1"))
+                .expectNextMatches(Event::isGap)
+                .expectNext(new Event<>(1, "c"))
+                .thenCancel()
+                .verify();
+        assertEquals("restarted-1", restarted.eventId(new Event<>(1, "c")));
+    }
+}
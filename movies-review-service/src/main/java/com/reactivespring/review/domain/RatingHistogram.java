@@ -0,0 +1,89 @@
+package com.reactivespring.review.domain;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fixed-width rating histogram used as a quantile sketch. Ratings in [0, 10) fall into bins of width 0.1 and
+ * anything above goes to one overflow bin, so a sketch never holds more than {@value #BINS} counters however
+ * many reviews it covers. Sketches merge by adding counts, and a quantile read from one is within one bin
+ * width of the exact nearest-rank value for ratings below 10.
+ */
+public class RatingHistogram {
+
+    public static final double BIN_WIDTH = 0.1;
+    public static final double UPPER_BOUND = 10.0;
+    public static final int BINS = (int) Math.round(UPPER_BOUND / BIN_WIDTH) + 1;
+
+    private final long[] counts = new long[BINS];
+
+    public static int binOf(double rating) {
+        // the epsilon keeps ratings such as 0.3 (0.29999... * 10) in the bin their decimal form names
+        return Math.max(0, Math.min(BINS - 1, (int) Math.floor(rating / BIN_WIDTH + 1e-9)));
+    }
+
+    /**
+     * Builds a sketch from stored bins keyed by bin index, as kept on {@link ReviewSummary}.
+     */
+    public static RatingHistogram fromBins(Map<String, Long> bins) {
+        var histogram = new RatingHistogram();
+        if (bins != null) {
+            bins.forEach((bin, count) -> histogram.counts[Integer.parseInt(bin)] += Math.max(0, count));
+        }
+        return histogram;
+    }
+
+    public void add(double rating) {
+        counts[binOf(rating)]++;
+    }
+
+    public void merge(RatingHistogram other) {
+        for (int bin = 0; bin < BINS; bin++) {
+            counts[bin] += other.counts[bin];
+        }
+    }
+
+    public long count() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Nearest-rank quantile, interpolated linearly inside the bin it falls in; null for an empty sketch.
+     */
+    public Double quantile(double q) {
+        var total = count();
+        if (total == 0) {
+            return null;
+        }
+        var rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            if (counts[bin] > 0 && seen + counts[bin] >= rank) {
+                if (bin == BINS - 1) {
+                    return UPPER_BOUND;
+                }
+                return (bin + (double) (rank - seen) / counts[bin]) * BIN_WIDTH;
+            }
+            seen += counts[bin];
+        }
+        return UPPER_BOUND;
+    }
+
+    /**
+     * Non-empty bins keyed by their lower bound, in ascending order.
+     */
+    public Map<String, Long> toHistogram() {
+        var histogram = new LinkedHashMap<String, Long>();
+        for (int bin = 0; bin < BINS; bin++) {
+            if (counts[bin] > 0) {
+                histogram.put(String.format(Locale.ROOT, "%.1f", bin * BIN_WIDTH), counts[bin]);
+            }
+        }
+        return histogram;
+    }
+}
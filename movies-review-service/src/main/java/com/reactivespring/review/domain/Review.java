@@ -4,6 +4,8 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Getter
@@ -11,6 +13,12 @@ import org.springframework.data.mongodb.core.mapping.Document;
 @AllArgsConstructor
 @NoArgsConstructor
 @Document
+@CompoundIndexes({
+        @CompoundIndex(name = "movieInfoId_newest", def = "{'movieInfoId': 1, '_id': -1}"),
+        @CompoundIndex(name = "movieInfoId_rating", def = "{'movieInfoId': 1, 'rating': -1, '_id': -1}"),
+        // the rating ordered page across all movies, the newest order is served by _id
+        @CompoundIndex(name = "rating", def = "{'rating': -1, '_id': -1}")
+})
 @Builder
 public class Review {
     @Id
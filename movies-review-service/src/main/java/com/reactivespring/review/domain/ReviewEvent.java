@@ -0,0 +1,31 @@
+package com.reactivespring.review.domain;
+
+import lombok.*;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(ReviewEvent.COLLECTION)
+public class ReviewEvent {
+
+    public static final String COLLECTION = "reviewEvents";
+
+    @Id
+    private ObjectId id;
+    private Type type;
+    private Review review;
+    private Instant createdAt;
+
+    public enum Type {
+        ADDED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.review.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document
+@Builder
+public class ReviewSummary {
+    @Id
+    private Long movieInfoId;
+    private long count;
+    // reviews without a rating count towards count only
+    private long ratingCount;
+    private double sum;
+    private Double min;
+    private Double max;
+    // RatingHistogram bin index -> review count, kept up to date with $inc
+    @JsonIgnore
+    private Map<String, Long> ratingBins;
+    // set by every update and by the rebuild, which removes the summaries it neither wrote nor saw updated
+    @JsonIgnore
+    private Instant updatedAt;
+
+    public Double getAverage() {
+        return ratingCount == 0 ? null : sum / ratingCount;
+    }
+
+    public Double getP10() {
+        return RatingHistogram.fromBins(ratingBins).quantile(0.1);
+    }
+
+    public Double getP50() {
+        return RatingHistogram.fromBins(ratingBins).quantile(0.5);
+    }
+
+    public Double getP90() {
+        return RatingHistogram.fromBins(ratingBins).quantile(0.9);
+    }
+
+    public Map<String, Long> getHistogram() {
+        return RatingHistogram.fromBins(ratingBins).toHistogram();
+    }
+}
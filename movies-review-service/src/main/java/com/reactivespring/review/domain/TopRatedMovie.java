@@ -0,0 +1,16 @@
+package com.reactivespring.review.domain;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class TopRatedMovie {
+    private int rank;
+    private Long movieInfoId;
+    private double average;
+    private long ratingCount;
+}
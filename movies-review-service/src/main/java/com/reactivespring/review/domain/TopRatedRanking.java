@@ -0,0 +1,15 @@
+package com.reactivespring.review.domain;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class TopRatedRanking {
+    private List<TopRatedMovie> movies;
+}
@@ -1,20 +1,34 @@
 package com.reactivespring.review.handler;
 
 import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewEvent;
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedRanking;
 import com.reactivespring.review.exception.ReviewDataException;
 import com.reactivespring.review.exception.ReviewNotFoundException;
+import com.reactivespring.review.journal.ReviewJournal;
+import com.reactivespring.review.repository.ReviewCursor;
 import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.repository.ReviewSort;
+import com.reactivespring.review.service.ReviewEventFeed;
+import com.reactivespring.review.service.ReviewSummaryService;
+import com.reactivespring.review.service.ReviewTopics;
+import com.reactivespring.review.service.TopRatedService;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.publisher.Sinks;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -22,9 +36,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ReviewHandler {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final List<String> PAGE_PARAMS = List.of("limit", "after", "sort");
+    private static final int MAX_PAGE_LIMIT = 500;
+    private static final int MAX_TOP_K = 100;
+
     private final ReviewReactiveRepository reviewReactiveRepository;
+    private final ReviewSummaryService reviewSummaryService;
+    private final TopRatedService topRatedService;
+    private final ReviewTopics reviewTopics;
+    private final ReviewEventFeed reviewEventFeed;
+    private final ReviewJournal reviewJournal;
     private final Validator validator;
-    Sinks.Many<Review> reviewSink = Sinks.many().replay().latest();
 
     public Mono<ServerResponse> addReview(ServerRequest request) {
         return request.bodyToMono(Review.class)
@@ -33,9 +56,9 @@ public class ReviewHandler {
                     log.info("Review request to be added: {}", review);
                     return this.reviewReactiveRepository.save(review);
                 })
-                .doOnNext(review -> {
-                    reviewSink.tryEmitNext(review);
-                })
+                .flatMap(review -> this.reviewSummaryService.onAdded(review).thenReturn(review))
+                .flatMap(review -> this.reviewEventFeed.onAdded(review).thenReturn(review))
+                .doOnNext(review -> this.reviewJournal.append(ReviewEvent.Type.ADDED, review))
                 .flatMap(review -> ServerResponse.ok().bodyValue(review));
     }
 
@@ -52,6 +75,14 @@ public class ReviewHandler {
     }
 
     public Mono<ServerResponse> getReviews(ServerRequest request) {
+        if (request.queryParam("movieInfoIds").isPresent()) {
+            return Mono.fromCallable(() -> parseMovieInfoIds(request.queryParam("movieInfoIds").get()))
+                    .flatMap(movieInfoIds -> ServerResponse.ok()
+                            .body(this.reviewReactiveRepository.findByMovieInfoIdIn(movieInfoIds), Review.class));
+        }
+        if (PAGE_PARAMS.stream().anyMatch(param -> request.queryParam(param).isPresent())) {
+            return getReviewsPage(request);
+        }
         if (request.queryParam("movieInfoId").isPresent()) {
             return ServerResponse.ok()
                     .body(this.reviewReactiveRepository.findByMovieInfoId(Long.valueOf(request.queryParam("movieInfoId").get())),
@@ -61,31 +92,184 @@ public class ReviewHandler {
                 .body(this.reviewReactiveRepository.findAll(), Review.class);
     }
 
+    private Mono<ServerResponse> getReviewsPage(ServerRequest request) {
+        return Mono.fromCallable(() -> {
+                    var sort = ReviewSort.fromParam(request.queryParam("sort").orElse(ReviewSort.NEWEST.name()));
+                    var after = request.queryParam("after").map(token -> ReviewCursor.decode(token, sort)).orElse(null);
+                    var movieInfoId = request.queryParam("movieInfoId").map(this::parseMovieInfoId).orElse(null);
+                    return new PageRequest(movieInfoId, sort, after, request.queryParam("limit").map(this::parseLimit).orElse(0));
+                })
+                .flatMap(page -> {
+                    if (page.limit() == 0) {
+                        return ServerResponse.ok()
+                                .body(this.reviewReactiveRepository.findPage(page.movieInfoId(), page.sort(), page.after(), 0),
+                                        Review.class);
+                    }
+                    // one extra review tells whether there is a next page without a count query
+                    return this.reviewReactiveRepository.findPage(page.movieInfoId(), page.sort(), page.after(), page.limit() + 1)
+                            .collectList()
+                            .flatMap(reviews -> {
+                                var response = ServerResponse.ok();
+                                if (reviews.size() > page.limit()) {
+                                    reviews = reviews.subList(0, page.limit());
+                                    response.header(NEXT_CURSOR_HEADER,
+                                            ReviewCursor.after(page.sort(), reviews.get(reviews.size() - 1)).encode());
+                                }
+                                return response.body(Flux.fromIterable(reviews), Review.class);
+                            });
+                });
+    }
+
+    private Long parseMovieInfoId(String movieInfoId) {
+        try {
+            return Long.valueOf(movieInfoId);
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(String.format("Invalid movieInfoId: %s", movieInfoId));
+        }
+    }
+
+    private int parseLimit(String limit) {
+        try {
+            var value = Integer.parseInt(limit);
+            if (value >= 1 && value <= MAX_PAGE_LIMIT) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new ReviewDataException(String.format("limit must be between 1 and %d, got %s", MAX_PAGE_LIMIT, limit));
+    }
+
+    private record PageRequest(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit) {
+    }
+
+    private List<Long> parseMovieInfoIds(String movieInfoIds) {
+        try {
+            return Arrays.stream(movieInfoIds.split(","))
+                    .map(String::trim)
+                    .filter(id -> !id.isEmpty())
+                    .map(Long::valueOf)
+                    .distinct()
+                    .toList();
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(String.format("Invalid movieInfoIds: %s", movieInfoIds));
+        }
+    }
+
     public Mono<ServerResponse> updateReview(ServerRequest request) {
         var id = request.pathVariable("id");
-        var existingReview = this.reviewReactiveRepository.findById(id)
-                .switchIfEmpty(Mono.error(new ReviewNotFoundException(String.format("Review not found for given review id: %s", id))));
-        return existingReview.flatMap(review -> request.bodyToMono(Review.class)
-                .map(newReview -> {
-                    review.setComment(newReview.getComment());
-                    review.setRating(newReview.getRating());
-                    return review;
-                })
-                .flatMap(this.reviewReactiveRepository::save)
+        // the old rating comes from the update itself, so concurrent updates of a review each see the rating they
+        // replaced and the summary deltas add up
+        return request.bodyToMono(Review.class)
+                .flatMap(newReview -> this.reviewReactiveRepository
+                        .updateCommentAndRating(id, newReview.getComment(), newReview.getRating())
+                        .switchIfEmpty(Mono.error(new ReviewNotFoundException(String.format("Review not found for given review id: %s", id))))
+                        .flatMap(oldReview -> {
+                            var savedReview = new Review(oldReview.getReviewId(), oldReview.getMovieInfoId(),
+                                    newReview.getComment(), newReview.getRating());
+                            return this.reviewSummaryService.onUpdated(oldReview.getRating(), savedReview).thenReturn(savedReview);
+                        }))
+                .flatMap(savedReview -> this.reviewEventFeed.onUpdated(savedReview).thenReturn(savedReview))
+                .doOnNext(savedReview -> this.reviewJournal.append(ReviewEvent.Type.UPDATED, savedReview))
                 .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview))
-        ).switchIfEmpty(ServerResponse.notFound().build());
+                .switchIfEmpty(ServerResponse.notFound().build());
     }
 
     public Mono<ServerResponse> deleteReview(ServerRequest request) {
-        return this.reviewReactiveRepository.deleteById(request.pathVariable("id"))
+        var id = request.pathVariable("id");
+        // only the request whose removal took the review moves the summary and publishes the event
+        return this.reviewReactiveRepository.removeById(id)
+                .flatMap(review -> this.reviewSummaryService.onDeleted(review)
+                        .then(this.reviewEventFeed.onDeleted(review))
+                        .then(Mono.fromRunnable(() -> this.reviewJournal.append(ReviewEvent.Type.DELETED, review))))
                 .then(ServerResponse.ok().build());
     }
 
+    public Mono<ServerResponse> getReviewSummaries(ServerRequest request) {
+        var movieInfoIds = request.queryParam("movieInfoIds").or(() -> request.queryParam("movieInfoId"));
+        if (movieInfoIds.isEmpty()) {
+            return Mono.error(new ReviewDataException("movieInfoIds must be provided"));
+        }
+        return Mono.fromCallable(() -> parseMovieInfoIds(movieInfoIds.get()))
+                .flatMap(ids -> ServerResponse.ok()
+                        .body(this.reviewSummaryService.findByMovieInfoIds(ids), ReviewSummary.class));
+    }
+
+    public Mono<ServerResponse> getTopRated(ServerRequest request) {
+        return Mono.fromCallable(() -> topRatedService.top(parseTopK(request), parseMinCount(request)))
+                .flatMap(top -> ServerResponse.ok().bodyValue(top));
+    }
+
+    public Mono<ServerResponse> getTopRatedStream(ServerRequest request) {
+        return Mono.fromCallable(() -> topRatedService.topStream(parseTopK(request), parseMinCount(request)))
+                .flatMap(top -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(top, TopRatedRanking.class));
+    }
+
+    private int parseTopK(ServerRequest request) {
+        var k = request.queryParam("k").orElse("10");
+        try {
+            var value = Integer.parseInt(k);
+            if (value >= 1 && value <= MAX_TOP_K) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new ReviewDataException(String.format("k must be between 1 and %d, got %s", MAX_TOP_K, k));
+    }
+
+    private long parseMinCount(ServerRequest request) {
+        var minCount = request.queryParam("minCount").orElse("1");
+        try {
+            var value = Long.parseLong(minCount);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new ReviewDataException(String.format("minCount must be zero or more, got %s", minCount));
+    }
+
+    public Mono<ServerResponse> rebuildReviewSummaries(ServerRequest request) {
+        return this.reviewSummaryService.rebuild()
+                .flatMap(count -> ServerResponse.ok().bodyValue(Map.of("summaries", count)));
+    }
+
     public Mono<ServerResponse> getReviewsStream(ServerRequest request) {
+        if (request.queryParam("movieInfoId").isPresent()) {
+            return Mono.fromCallable(() -> parseMovieInfoId(request.queryParam("movieInfoId").get()))
+                    .flatMap(movieInfoId -> ServerResponse.ok()
+                            .contentType(MediaType.APPLICATION_NDJSON)
+                            .body(reviewTopics.subscribe(movieInfoId), Review.class));
+        }
         return ServerResponse.ok()
                 .contentType(MediaType.APPLICATION_NDJSON)
-                .body(reviewSink.asFlux(), Review.class)
+                .body(reviewTopics.subscribeAll(), Review.class)
                 .log();
 
     }
+
+    // replays from the local journal after the offset of the last line received, reads follow the client's demand
+    // so a slow client falls behind in the journal instead of buffering or dropping events
+    public Mono<ServerResponse> getReviewsJournalStream(ServerRequest request) {
+        if (!reviewJournal.isEnabled()) {
+            return Mono.error(new ReviewNotFoundException("The review journal is not enabled"));
+        }
+        return Mono.fromCallable(() -> request.queryParam("after").map(this::parseOffset))
+                .flatMap(after -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .body(BodyInserters.fromDataBuffers(
+                                reviewJournal.stream(after.orElse(null), request.exchange().getResponse().bufferFactory()))));
+    }
+
+    private long parseOffset(String offset) {
+        try {
+            return Long.parseLong(offset);
+        } catch (NumberFormatException ex) {
+            throw new ReviewDataException(String.format("Invalid offset: %s", offset));
+        }
+    }
 }
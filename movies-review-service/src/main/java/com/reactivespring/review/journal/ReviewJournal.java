@@ -0,0 +1,34 @@
+package com.reactivespring.review.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.common.journal.EventJournal;
+import com.reactivespring.common.journal.SegmentedJournal;
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+
+/**
+ * Journal of the reviews added, updated and deleted through this instance, one
+ * {"offset":...,"type":"ADDED","event":{...}} line per event. Disabled unless reviews.stream.journal.enabled is set.
+ */
+@Component
+public class ReviewJournal extends EventJournal<Review> {
+
+    public ReviewJournal(ObjectMapper objectMapper,
+                         @Value("${reviews.stream.journal.enabled:false}") boolean enabled,
+                         @Value("${reviews.stream.journal.directory:journal/reviews}") Path directory,
+                         @Value("${reviews.stream.journal.segmentSizeBytes:67108864}") int segmentSizeBytes,
+                         @Value("${reviews.stream.journal.maxSegments:8}") int maxSegments,
+                         MeterRegistry meterRegistry) {
+        super("reviews", objectMapper, Review::getReviewId,
+                enabled ? new SegmentedJournal(directory, segmentSizeBytes, maxSegments) : null, meterRegistry);
+    }
+
+    public void append(ReviewEvent.Type type, Review review) {
+        append(type.name(), review);
+    }
+}
@@ -0,0 +1,60 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.exception.ReviewDataException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Keyset position of the last review on a page: its sort key and id, encoded as an opaque URL-safe token. Each
+ * field is Base64 encoded on its own and the parts are joined with a character the URL-safe alphabet does not use,
+ * so an id may contain any character.
+ */
+@Getter
+@AllArgsConstructor
+public class ReviewCursor {
+
+    private static final String SEPARATOR = ".";
+
+    private final ReviewSort sort;
+    private final Double rating;
+    private final String reviewId;
+
+    public static ReviewCursor after(ReviewSort sort, Review review) {
+        return new ReviewCursor(sort, review.getRating(), review.getReviewId());
+    }
+
+    public String encode() {
+        return String.join(SEPARATOR, encodePart(sort.name()), encodePart(rating == null ? "" : rating.toString()),
+                encodePart(reviewId));
+    }
+
+    public static ReviewCursor decode(String token, ReviewSort sort) {
+        try {
+            var parts = token.split(Pattern.quote(SEPARATOR), -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("cursor has " + parts.length + " parts");
+            }
+            var rating = decodePart(parts[1]);
+            var reviewId = decodePart(parts[2]);
+            if (ReviewSort.valueOf(decodePart(parts[0])) != sort || reviewId.isEmpty()) {
+                throw new IllegalArgumentException("cursor does not match the requested sort");
+            }
+            return new ReviewCursor(sort, rating.isEmpty() ? null : Double.valueOf(rating), reviewId);
+        } catch (IllegalArgumentException ex) {
+            throw new ReviewDataException(String.format("Invalid cursor: %s", token));
+        }
+    }
+
+    private static String encodePart(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String part) {
+        return new String(Base64.getUrlDecoder().decode(part), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.Review;
+import reactor.core.publisher.Flux;
+
+public interface ReviewPageRepository {
+
+    /**
+     * Reviews of a movie (or of all movies when movieInfoId is null) in the given order, starting after the
+     * cursor when one is given. A limit of 0 means no limit.
+     */
+    Flux<Review> findPage(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit);
+}
@@ -0,0 +1,58 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.Review;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+public class ReviewPageRepositoryImpl implements ReviewPageRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Review> findPage(Long movieInfoId, ReviewSort sort, ReviewCursor after, int limit) {
+        var criteria = new Criteria();
+        if (movieInfoId != null) {
+            criteria.and("movieInfoId").is(movieInfoId);
+        }
+        if (after != null) {
+            criteria.andOperator(sort == ReviewSort.RATING ? afterRating(after) : beforeId(after.getReviewId()));
+        }
+        var query = Query.query(criteria).with(sortOf(sort)).limit(limit);
+        return reactiveMongoTemplate.find(query, Review.class);
+    }
+
+    // both orders end with _id desc so that keys are unique and the keyset condition is exact
+    private static Sort sortOf(ReviewSort sort) {
+        return sort == ReviewSort.RATING
+                ? Sort.by(Sort.Direction.DESC, "rating").and(Sort.by(Sort.Direction.DESC, "reviewId"))
+                : Sort.by(Sort.Direction.DESC, "reviewId");
+    }
+
+    // reviews without a rating sort after every rated review in descending order
+    private static Criteria afterRating(ReviewCursor after) {
+        if (after.getRating() == null) {
+            return new Criteria().andOperator(Criteria.where("rating").is(null), beforeId(after.getReviewId()));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("rating").lt(after.getRating()),
+                new Criteria().andOperator(Criteria.where("rating").is(after.getRating()), beforeId(after.getReviewId())),
+                Criteria.where("rating").is(null));
+    }
+
+    // ids that are not ObjectIds are stored as strings, which sort after every ObjectId in descending order
+    private static Criteria beforeId(String reviewId) {
+        if (!ObjectId.isValid(reviewId)) {
+            return Criteria.where("reviewId").lt(reviewId);
+        }
+        return new Criteria().orOperator(
+                Criteria.where("reviewId").lt(reviewId),
+                Criteria.where("reviewId").type(JsonSchemaObject.Type.STRING));
+    }
+}
@@ -0,0 +1,18 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.exception.ReviewDataException;
+
+import java.util.Arrays;
+
+public enum ReviewSort {
+    // _id is an ObjectId, so descending _id is descending creation time
+    NEWEST,
+    RATING;
+
+    public static ReviewSort fromParam(String sort) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(sort))
+                .findFirst()
+                .orElseThrow(() -> new ReviewDataException(String.format("Invalid sort: %s", sort)));
+    }
+}
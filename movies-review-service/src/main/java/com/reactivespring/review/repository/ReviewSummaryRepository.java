@@ -0,0 +1,7 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.ReviewSummary;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface ReviewSummaryRepository extends ReactiveMongoRepository<ReviewSummary, Long> {
+}
@@ -0,0 +1,19 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.Review;
+import reactor.core.publisher.Mono;
+
+public interface ReviewUpdateRepository {
+
+    /**
+     * Sets the comment and rating of a review in one atomic update and returns the review as it was before it,
+     * empty when there is no review with that id.
+     */
+    Mono<Review> updateCommentAndRating(String reviewId, String comment, Double rating);
+
+    /**
+     * Removes a review in one atomic operation and returns it, empty when there is no review with that id, so of
+     * concurrent removals of a review only one gets it.
+     */
+    Mono<Review> removeById(String reviewId);
+}
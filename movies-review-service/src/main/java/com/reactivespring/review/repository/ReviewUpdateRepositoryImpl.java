@@ -0,0 +1,39 @@
+package com.reactivespring.review.repository;
+
+import com.reactivespring.review.domain.Review;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@RequiredArgsConstructor
+public class ReviewUpdateRepositoryImpl implements ReviewUpdateRepository {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Mono<Review> updateCommentAndRating(String reviewId, String comment, Double rating) {
+        var update = new Update();
+        // a null value is left out of the document, as save does
+        setOrUnset(update, "comment", comment);
+        setOrUnset(update, "rating", rating);
+        return reactiveMongoTemplate.findAndModify(Query.query(Criteria.where("reviewId").is(reviewId)), update,
+                FindAndModifyOptions.options().returnNew(false), Review.class);
+    }
+
+    @Override
+    public Mono<Review> removeById(String reviewId) {
+        return reactiveMongoTemplate.findAndRemove(Query.query(Criteria.where("reviewId").is(reviewId)), Review.class);
+    }
+
+    private static void setOrUnset(Update update, String key, Object value) {
+        if (value == null) {
+            update.unset(key);
+        } else {
+            update.set(key, value);
+        }
+    }
+}
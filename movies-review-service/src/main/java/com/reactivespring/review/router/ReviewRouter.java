@@ -16,9 +16,15 @@ public class ReviewRouter {
     public RouterFunction<ServerResponse> reviewRoute(ReviewHandler reviewHandler) {
         return route()
                 .nest(path("/v1/reviews"), builder -> builder
+                        // specific paths first, the catch-all POST and GET below match any path under /v1/reviews
+                        .POST("/summary/rebuild", reviewHandler::rebuildReviewSummaries)
+                        .GET("/summary", reviewHandler::getReviewSummaries)
+                        .GET("/top", reviewHandler::getTopRated)
+                        .GET("/top/stream", reviewHandler::getTopRatedStream)
+                        .GET("/stream/journal", reviewHandler::getReviewsJournalStream)
+                        .GET("/stream", reviewHandler::getReviewsStream)
                         .POST(reviewHandler::addReview)
                         .GET(reviewHandler::getReviews)
-                        .GET("/stream", reviewHandler::getReviewsStream)
                         .PUT("/{id}", reviewHandler::updateReview)
                         .DELETE("/{id}", reviewHandler::deleteReview))
                 .GET("/v1/helloworld", request -> ServerResponse.ok().bodyValue("Hello World"))
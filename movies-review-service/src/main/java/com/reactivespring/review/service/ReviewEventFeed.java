@@ -0,0 +1,214 @@
+package com.reactivespring.review.service;
+
+import com.mongodb.MongoException;
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Where review writes are announced. With the LOCAL source an added review goes straight to this instance's
+ * {@link ReviewTopics}. With FEED every add, update and delete is appended to the reviewEvents capped collection,
+ * which bounds retention by size and count, and each instance tails it and publishes the added reviews, so every
+ * instance streams every review and events survive a restart. ObjectIds from different instances are not ordered
+ * (clocks skew and counters are per process), so a tail reads from resumeWindow before the newest event and skips
+ * the ids it has already seen in that window. A new tail first marks the events in the window before the newest
+ * existing event as seen, and a tail that ends (the cursor dies on an empty or wrapped collection) resumes from the
+ * window before the newest event it read.
+ */
+@Service
+@Slf4j
+public class ReviewEventFeed {
+
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReviewTopics reviewTopics;
+    private final Source source;
+    private final long maxSizeBytes;
+    private final long maxDocuments;
+    private final Duration resumeWindow;
+    private final Duration retryBackoff;
+    private final AtomicBoolean collectionReady = new AtomicBoolean();
+    private Disposable tailSubscription;
+
+    public ReviewEventFeed(ReactiveMongoTemplate reactiveMongoTemplate,
+                           ReviewTopics reviewTopics,
+                           @Value("${reviews.stream.source:LOCAL}") Source source,
+                           @Value("${reviews.stream.feed.maxSizeBytes:16777216}") long maxSizeBytes,
+                           @Value("${reviews.stream.feed.maxDocuments:100000}") long maxDocuments,
+                           @Value("${reviews.stream.feed.resumeWindow:PT5S}") Duration resumeWindow,
+                           @Value("${reviews.stream.feed.retryBackoff:PT1S}") Duration retryBackoff) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.reviewTopics = reviewTopics;
+        this.source = source;
+        this.maxSizeBytes = maxSizeBytes;
+        this.maxDocuments = maxDocuments;
+        this.resumeWindow = resumeWindow;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public Mono<Void> onAdded(Review review) {
+        if (source == Source.LOCAL) {
+            reviewTopics.publish(review);
+            return Mono.empty();
+        }
+        return append(ReviewEvent.Type.ADDED, review);
+    }
+
+    public Mono<Void> onUpdated(Review review) {
+        return source == Source.FEED ? append(ReviewEvent.Type.UPDATED, review) : Mono.empty();
+    }
+
+    public Mono<Void> onDeleted(Review review) {
+        return source == Source.FEED ? append(ReviewEvent.Type.DELETED, review) : Mono.empty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("Review stream source: {}", source);
+        if (source != Source.FEED) {
+            return;
+        }
+        tailSubscription = tail()
+                .filter(event -> event.getType() == ReviewEvent.Type.ADDED)
+                .subscribe(event -> reviewTopics.publish(event.getReview()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (tailSubscription != null) {
+            tailSubscription.dispose();
+        }
+    }
+
+    /**
+     * Events appended after this call, in collection order.
+     */
+    public Flux<ReviewEvent> tail() {
+        // seeded once, a tail resumed after a failure still skips the events that preceded this call
+        var seeded = new AtomicBoolean();
+        var seenIds = new TreeSet<ObjectId>();
+        return Mono.defer(() -> seeded.get() ? Mono.<Void>empty() : ensureCollection()
+                        .then(seedSeenIds(seenIds))
+                        .doOnSuccess(result -> seeded.set(true)))
+                .thenMany(Flux.defer(() -> reactiveMongoTemplate.tail(
+                                        Query.query(resumeCriteria(seenIds)), ReviewEvent.class))
+                        // the tail delivers serially, so the seen ids are only touched by one thread at a time
+                        .filter(event -> seenIds.add(event.getId()))
+                        // a resumed tail reads nothing older than resumeFrom, so those ids cannot repeat
+                        .doOnNext(event -> seenIds.headSet(resumeFrom(seenIds)).clear())
+                        .repeatWhen(completions -> completions.delayElements(retryBackoff)))
+                .doOnError(ex -> log.warn("Review event feed tail failed, resuming: {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, retryBackoff).maxBackoff(Duration.ofSeconds(30)).transientErrors(true));
+    }
+
+    // the events within resumeWindow of the newest one precede the tail, it reads them again and skips them
+    private Mono<Void> seedSeenIds(NavigableSet<ObjectId> seenIds) {
+        return newestId()
+                .flatMapMany(newestId -> {
+                    var query = Query.query(Criteria.where("_id").gte(resumeFrom(newestId)));
+                    query.fields().include("_id");
+                    return reactiveMongoTemplate.find(query, ReviewEvent.class);
+                })
+                .doOnNext(event -> seenIds.add(event.getId()))
+                .then();
+    }
+
+    private Criteria resumeCriteria(NavigableSet<ObjectId> seenIds) {
+        if (seenIds.isEmpty()) {
+            return new Criteria();
+        }
+        return Criteria.where("_id").gte(resumeFrom(seenIds));
+    }
+
+    private ObjectId resumeFrom(NavigableSet<ObjectId> seenIds) {
+        return resumeFrom(seenIds.last());
+    }
+
+    // the smallest id within resumeWindow of the given one
+    private ObjectId resumeFrom(ObjectId newestId) {
+        return ObjectId.getSmallestWithDate(Date.from(newestId.getDate().toInstant().minus(resumeWindow)));
+    }
+
+    private Mono<ObjectId> newestId() {
+        var query = new Query().with(Sort.by(Sort.Direction.DESC, "$natural")).limit(1);
+        return reactiveMongoTemplate.findOne(query, ReviewEvent.class).map(ReviewEvent::getId);
+    }
+
+    // a failed append does not fail the review write, the event is only missing from the stream
+    private Mono<Void> append(ReviewEvent.Type type, Review review) {
+        var event = ReviewEvent.builder().type(type).review(review).createdAt(Instant.now()).build();
+        return ensureCollection()
+                .then(reactiveMongoTemplate.insert(event))
+                .onErrorResume(ex -> {
+                    log.error("Failed to append a {} event for review {}", type, review.getReviewId(), ex);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // an insert into a missing collection would create it uncapped, so it is created (or converted) first
+    private Mono<Void> ensureCollection() {
+        if (collectionReady.get()) {
+            return Mono.empty();
+        }
+        var listCollections = new Document("listCollections", 1)
+                .append("filter", new Document("name", ReviewEvent.COLLECTION));
+        return reactiveMongoTemplate.executeCommand(listCollections)
+                .flatMap(result -> {
+                    List<Document> collections = result.get("cursor", Document.class).getList("firstBatch", Document.class);
+                    if (collections.isEmpty()) {
+                        return reactiveMongoTemplate.createCollection(ReviewEvent.class,
+                                        CollectionOptions.empty().capped().size(maxSizeBytes).maxDocuments(maxDocuments))
+                                .then()
+                                .onErrorResume(ReviewEventFeed::isNamespaceExists, ex -> Mono.empty());
+                    }
+                    if (!collections.get(0).get("options", Document.class).getBoolean("capped", false)) {
+                        log.warn("Converting {} to a capped collection of {} bytes", ReviewEvent.COLLECTION, maxSizeBytes);
+                        return reactiveMongoTemplate.executeCommand(new Document("convertToCapped", ReviewEvent.COLLECTION)
+                                .append("size", maxSizeBytes)).then();
+                    }
+                    return Mono.empty();
+                })
+                .doOnSuccess(result -> collectionReady.set(true));
+    }
+
+    // another instance created the collection first
+    private static boolean isNamespaceExists(Throwable ex) {
+        for (var cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.getCode() == NAMESPACE_EXISTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public enum Source {
+        LOCAL,
+        FEED
+    }
+}
@@ -0,0 +1,201 @@
+package com.reactivespring.review.service;
+
+import com.reactivespring.review.domain.RatingHistogram;
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.repository.ReviewSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps one {@link ReviewSummary} per movie in step with review writes. Adds and rating changes are applied
+ * with $inc/$min/$max, including the {@link RatingHistogram} bin of the rating; a removed rating that was the
+ * current min or max is recomputed from the reviews. Summaries are only ever written by atomic updates and
+ * server-side merges, never read and saved back. A failed summary update does not fail the review write, the
+ * rebuild job repairs it.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReviewSummaryService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReviewSummaryRepository reviewSummaryRepository;
+    private final TopRatedService topRatedService;
+
+    public Flux<ReviewSummary> findByMovieInfoIds(Collection<Long> movieInfoIds) {
+        return reviewSummaryRepository.findAllById(movieInfoIds);
+    }
+
+    public Mono<Void> onAdded(Review review) {
+        var update = ratingChange(new Update().inc("count", 1), null, review.getRating());
+        return apply(review.getMovieInfoId(), update, null);
+    }
+
+    public Mono<Void> onUpdated(Double oldRating, Review review) {
+        if (Objects.equals(oldRating, review.getRating())) {
+            return Mono.empty();
+        }
+        var update = ratingChange(new Update(), oldRating, review.getRating());
+        return apply(review.getMovieInfoId(), update, oldRating);
+    }
+
+    public Mono<Void> onDeleted(Review review) {
+        var update = ratingChange(new Update().inc("count", -1), review.getRating(), null);
+        return apply(review.getMovieInfoId(), update, review.getRating());
+    }
+
+    @Scheduled(cron = "${reviews.summary.rebuild.cron:-}")
+    public void scheduledRebuild() {
+        rebuild().subscribe(count -> log.info("Rebuilt {} review summaries", count),
+                ex -> log.error("Review summary rebuild failed", ex));
+    }
+
+    /**
+     * Recomputes every summary from the reviews collection into the summary collection with $merge, so no summary
+     * passes through the application, and removes the summaries of movies without reviews. A summary updated
+     * after the rebuild started keeps its incremental value. A review added just before the rebuild whose summary
+     * update lands after it is counted twice until the next rebuild.
+     */
+    public Mono<Long> rebuild() {
+        var rebuildStart = Date.from(Instant.now());
+        // replaced unless an update (or another rebuild) has touched the summary since this rebuild started
+        var whenMatched = List.of(new Document("$replaceWith", new Document("$cond", List.of(
+                new Document("$lt", List.of(new Document("$ifNull", Arrays.asList("$updatedAt", new Date(0))), rebuildStart)),
+                "$$new",
+                "$$ROOT"))));
+        return mergeSummaries(new Document(), rebuildStart, whenMatched, "insert")
+                .then(reactiveMongoTemplate.remove(Query.query(new Criteria().orOperator(
+                        Criteria.where("updatedAt").lt(rebuildStart),
+                        Criteria.where("updatedAt").exists(false))), ReviewSummary.class))
+                .then(topRatedService.refresh())
+                .map(Integer::longValue);
+    }
+
+    /**
+     * Recomputes the min and max rating of a movie from its reviews. The counts, sum and histogram bins are left
+     * to the $inc updates running alongside.
+     */
+    public Mono<Void> recompute(Long movieInfoId) {
+        var whenMatched = List.of(new Document("$set", new Document("min", "$$new.min").append("max", "$$new.max")));
+        return mergeSummaries(new Document("movieInfoId", movieInfoId), null, whenMatched, "discard")
+                .then(reviewSummaryRepository.findById(movieInfoId))
+                .doOnNext(topRatedService::update)
+                .then();
+    }
+
+    // one summary document per movie, with its RatingHistogram bins, merged into the summary collection
+    private Mono<Void> mergeSummaries(Document match, Date updatedAt, List<Document> whenMatched, String whenNotMatched) {
+        var bin = new Document("$cond", Arrays.asList(
+                new Document("$isNumber", "$rating"),
+                new Document("$toInt", new Document("$min", List.of(
+                        new Document("$floor", new Document("$add", List.of(
+                                new Document("$divide", List.of("$rating", RatingHistogram.BIN_WIDTH)), 1e-9))),
+                        RatingHistogram.BINS - 1))),
+                null));
+        var summary = new Document("count", 1)
+                .append("ratingCount", 1)
+                .append("sum", 1)
+                .append("min", 1)
+                .append("max", 1)
+                .append("ratingBins", new Document("$arrayToObject", new Document("$filter", new Document("input", "$bins")
+                        .append("cond", new Document("$ne", Arrays.asList("$$this.k", null))))));
+        if (updatedAt != null) {
+            summary.append("updatedAt", new Document("$literal", updatedAt));
+        }
+        var pipeline = List.of(
+                new Document("$match", match),
+                // per movie and bin first, $sum, $min and $max skip reviews without a rating
+                new Document("$group", new Document("_id", new Document("movieInfoId", "$movieInfoId").append("bin", bin))
+                        .append("count", new Document("$sum", 1))
+                        .append("sum", new Document("$sum", "$rating"))
+                        .append("min", new Document("$min", "$rating"))
+                        .append("max", new Document("$max", "$rating"))),
+                new Document("$group", new Document("_id", "$_id.movieInfoId")
+                        .append("count", new Document("$sum", "$count"))
+                        .append("ratingCount", new Document("$sum", new Document("$cond", Arrays.asList(
+                                new Document("$eq", Arrays.asList("$_id.bin", null)), 0, "$count"))))
+                        .append("sum", new Document("$sum", "$sum"))
+                        .append("min", new Document("$min", "$min"))
+                        .append("max", new Document("$max", "$max"))
+                        .append("bins", new Document("$push", new Document("k", new Document("$toString", "$_id.bin"))
+                                .append("v", "$count")))),
+                new Document("$project", summary),
+                new Document("$merge", new Document("into", reactiveMongoTemplate.getCollectionName(ReviewSummary.class))
+                        .append("on", "_id")
+                        .append("whenMatched", whenMatched)
+                        .append("whenNotMatched", whenNotMatched)));
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.aggregate(pipeline).toCollection()));
+    }
+
+    private Mono<Void> apply(Long movieInfoId, Update update, Double removedRating) {
+        var query = Query.query(Criteria.where("movieInfoId").is(movieInfoId));
+        update.set("updatedAt", Instant.now());
+        return reactiveMongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), ReviewSummary.class)
+                .flatMap(summary -> {
+                    if (summary.getCount() <= 0) {
+                        return delete(movieInfoId);
+                    }
+                    if (removedRating != null
+                            && (removedRating.equals(summary.getMin()) || removedRating.equals(summary.getMax()))) {
+                        return recompute(movieInfoId);
+                    }
+                    topRatedService.update(summary);
+                    return Mono.empty();
+                })
+                .onErrorResume(ex -> {
+                    log.error("Failed to update the review summary of movie {}", movieInfoId, ex);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // only while the stored count is still zero, an add that landed after the decrement keeps its summary
+    private Mono<Void> delete(Long movieInfoId) {
+        var query = Query.query(Criteria.where("movieInfoId").is(movieInfoId).and("count").lte(0));
+        return reactiveMongoTemplate.remove(query, ReviewSummary.class)
+                .filter(result -> result.getDeletedCount() > 0)
+                .doOnNext(result -> topRatedService.remove(movieInfoId))
+                .then();
+    }
+
+    // a field can only appear once per $inc, so the removed and added ratings are folded into one delta
+    private static Update ratingChange(Update update, Double removedRating, Double addedRating) {
+        var ratingCountDelta = (addedRating == null ? 0 : 1) - (removedRating == null ? 0 : 1);
+        var sumDelta = (addedRating == null ? 0 : addedRating) - (removedRating == null ? 0 : removedRating);
+        update.inc("ratingCount", ratingCountDelta).inc("sum", sumDelta);
+        if (addedRating != null) {
+            update.min("min", addedRating).max("max", addedRating);
+        }
+        var removedBin = removedRating == null ? null : RatingHistogram.binOf(removedRating);
+        var addedBin = addedRating == null ? null : RatingHistogram.binOf(addedRating);
+        if (!Objects.equals(removedBin, addedBin)) {
+            if (removedBin != null) {
+                update.inc("ratingBins." + removedBin, -1);
+            }
+            if (addedBin != null) {
+                update.inc("ratingBins." + addedBin, 1);
+            }
+        }
+        return update;
+    }
+}
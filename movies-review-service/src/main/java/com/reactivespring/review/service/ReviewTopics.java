@@ -0,0 +1,116 @@
+package com.reactivespring.review.service;
+
+import com.reactivespring.common.util.SerializedEmitter;
+import com.reactivespring.common.util.SlowConsumerPolicy;
+import com.reactivespring.review.domain.Review;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The global review stream plus one review sink per movieInfoId, created when the first subscriber for that
+ * movie arrives and evicted once it has had no subscribers for the idle timeout. A review is emitted only into the
+ * sink of its own movie, and only if someone is listening, so fan-out cost follows the interested subscribers. Like
+ * the global stream, each topic replays its latest review to new subscribers while it is alive. All sinks are
+ * written through a {@link SerializedEmitter}, so concurrent review writes never race on tryEmitNext, and every
+ * subscriber reads through its own {@link SlowConsumerPolicy} buffer.
+ */
+@Service
+@Slf4j
+public class ReviewTopics {
+
+    private final ConcurrentMap<Long, Topic> topics = new ConcurrentHashMap<>();
+    private final SerializedEmitter<Review> allReviews;
+    private final Duration idleTimeout;
+    private final Duration maxEmitSpin;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ReviewTopics(@Value("${reviews.stream.topicIdleTimeout:PT1M}") Duration idleTimeout,
+                        @Value("${reviews.stream.maxEmitSpin:PT0.01S}") Duration maxEmitSpin,
+                        SlowConsumerPolicy slowConsumerPolicy,
+                        MeterRegistry meterRegistry) {
+        this(idleTimeout, maxEmitSpin, slowConsumerPolicy, Clock.systemUTC(), meterRegistry);
+    }
+
+    public ReviewTopics(Duration idleTimeout, Duration maxEmitSpin, SlowConsumerPolicy slowConsumerPolicy,
+                        Clock clock, MeterRegistry meterRegistry) {
+        this.idleTimeout = idleTimeout;
+        this.maxEmitSpin = maxEmitSpin;
+        this.slowConsumerPolicy = slowConsumerPolicy;
+        this.clock = clock;
+        this.meterRegistry = meterRegistry;
+        this.allReviews = new SerializedEmitter<>("reviews", Sinks.many().replay().latest(), maxEmitSpin, meterRegistry);
+        Gauge.builder("reviews.stream.topics", topics, Map::size)
+                .description("Per-movie review stream topics currently alive")
+                .register(meterRegistry);
+    }
+
+    public Flux<Review> subscribeAll() {
+        return slowConsumerPolicy.apply("reviews", allReviews.asFlux());
+    }
+
+    public Flux<Review> subscribe(Long movieInfoId) {
+        return Flux.defer(() -> {
+            var topic = topics.compute(movieInfoId, (id, existing) -> {
+                var current = existing == null ? new Topic() : existing;
+                current.subscribers++;
+                return current;
+            });
+            return slowConsumerPolicy.apply("reviews-topic", topic.emitter.asFlux())
+                    .doFinally(signalType -> topics.computeIfPresent(movieInfoId, (id, current) -> {
+                        current.subscribers--;
+                        current.idleSince = clock.instant();
+                        return current;
+                    }));
+        });
+    }
+
+    public void publish(Review review) {
+        allReviews.emit(review);
+        var topic = topics.get(review.getMovieInfoId());
+        if (topic != null) {
+            topic.emitter.emit(review);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reviews.stream.topicSweepInterval:PT30S}")
+    public void evictIdleTopics() {
+        var cutoff = clock.instant().minus(idleTimeout);
+        topics.keySet().forEach(movieInfoId -> topics.computeIfPresent(movieInfoId, (id, topic) -> {
+            if (topic.subscribers == 0 && !topic.idleSince.isAfter(cutoff)) {
+                topic.sink.emitComplete(Sinks.EmitFailureHandler.busyLooping(maxEmitSpin));
+                return null;
+            }
+            return topic;
+        }));
+    }
+
+    public int topicCount() {
+        return topics.size();
+    }
+
+    // mutated only inside ConcurrentHashMap compute calls, which serialise access per movie
+    private class Topic {
+        private final Sinks.Many<Review> sink = Sinks.many().replay().latest();
+        // per-movie emitters share the "reviews-topic" meters, a tag per movie would not stay bounded
+        private final SerializedEmitter<Review> emitter = new SerializedEmitter<>("reviews-topic", sink, maxEmitSpin, meterRegistry);
+        private int subscribers;
+        private Instant idleSince = clock.instant();
+    }
+}
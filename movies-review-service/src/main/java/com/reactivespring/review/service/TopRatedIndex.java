@@ -0,0 +1,77 @@
+package com.reactivespring.review.service;
+
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Movies ordered by average rating (then rating count, then id), updated one summary at a time. A top-K read
+ * walks the head of the ordering and skips movies under the review count threshold, so it costs O(K) plus the
+ * number of skipped movies rather than a scan of every summary.
+ */
+public class TopRatedIndex {
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::average).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::ratingCount).reversed())
+            .thenComparing(Entry::movieInfoId);
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+
+    /**
+     * Applies a summary and returns true when the movie's position or figures changed.
+     */
+    public synchronized boolean update(ReviewSummary summary) {
+        if (summary.getRatingCount() <= 0) {
+            return remove(summary.getMovieInfoId());
+        }
+        var entry = new Entry(summary.getMovieInfoId(), summary.getAverage(), summary.getRatingCount());
+        var previous = entries.put(entry.movieInfoId(), entry);
+        if (entry.equals(previous)) {
+            return false;
+        }
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+        return true;
+    }
+
+    public synchronized boolean remove(Long movieInfoId) {
+        var previous = entries.remove(movieInfoId);
+        return previous != null && ranking.remove(previous);
+    }
+
+    public synchronized void replaceAll(Collection<ReviewSummary> summaries) {
+        entries.clear();
+        ranking.clear();
+        summaries.forEach(this::update);
+    }
+
+    public synchronized List<TopRatedMovie> top(int k, long minCount) {
+        var top = new ArrayList<TopRatedMovie>(k);
+        for (var entry : ranking) {
+            if (top.size() == k) {
+                break;
+            }
+            if (entry.ratingCount() >= minCount) {
+                top.add(new TopRatedMovie(top.size() + 1, entry.movieInfoId(), entry.average(), entry.ratingCount()));
+            }
+        }
+        return top;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry(Long movieInfoId, double average, long ratingCount) {
+    }
+}
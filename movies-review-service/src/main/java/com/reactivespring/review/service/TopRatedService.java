@@ -0,0 +1,114 @@
+package com.reactivespring.review.service;
+
+import com.reactivespring.common.util.SerializedEmitter;
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+import com.reactivespring.review.domain.TopRatedRanking;
+import com.reactivespring.review.repository.ReviewSummaryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory top rated ranking fed by {@link ReviewSummaryService} on every review write. It is seeded from the
+ * stored summaries on startup and re-seeded periodically, which also picks up writes made on other instances.
+ */
+@Service
+@Slf4j
+public class TopRatedService {
+
+    private final ReviewSummaryRepository reviewSummaryRepository;
+    private final TopRatedIndex index = new TopRatedIndex();
+    private final SerializedEmitter<Boolean> changes;
+    private final ConcurrentMap<RankingKey, Flux<TopRatedRanking>> rankings = new ConcurrentHashMap<>();
+
+    public TopRatedService(ReviewSummaryRepository reviewSummaryRepository,
+                           @Value("${reviews.stream.maxEmitSpin:PT0.01S}") Duration maxEmitSpin,
+                           MeterRegistry meterRegistry) {
+        this.reviewSummaryRepository = reviewSummaryRepository;
+        this.changes = new SerializedEmitter<>("top-rated", Sinks.many().multicast().directBestEffort(), maxEmitSpin, meterRegistry);
+    }
+
+    public List<TopRatedMovie> top(int k, long minCount) {
+        return index.top(k, minCount);
+    }
+
+    /**
+     * The current top K followed by every later ranking that differs from the one before it. A subscriber that
+     * falls behind skips straight to the latest ranking.
+     */
+    public Flux<TopRatedRanking> topStream(int k, long minCount) {
+        var key = new RankingKey(k, minCount);
+        return Flux.defer(() -> rankings.computeIfAbsent(key, this::ranking))
+                .onBackpressureLatest();
+    }
+
+    // computed once per change for each (k, minCount) being streamed, on the parallel scheduler rather than the
+    // writer's thread, and shared by its subscribers; a new subscriber gets the latest ranking
+    private Flux<TopRatedRanking> ranking(RankingKey key) {
+        var ranking = new AtomicReference<Flux<TopRatedRanking>>();
+        ranking.set(changes.asFlux()
+                .onBackpressureLatest()
+                .startWith(Boolean.TRUE)
+                .publishOn(Schedulers.parallel(), 1)
+                .map(change -> new TopRatedRanking(index.top(key.k(), key.minCount())))
+                .distinctUntilChanged()
+                .doFinally(signalType -> rankings.remove(key, ranking.get()))
+                .replay(1)
+                .refCount());
+        return ranking.get();
+    }
+
+    public void update(ReviewSummary summary) {
+        if (index.update(summary)) {
+            changes.emit(Boolean.TRUE);
+        }
+    }
+
+    public void remove(Long movieInfoId) {
+        if (index.remove(movieInfoId)) {
+            changes.emit(Boolean.TRUE);
+        }
+    }
+
+    public void replaceAll(Collection<ReviewSummary> summaries) {
+        index.replaceAll(summaries);
+        changes.emit(Boolean.TRUE);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        refresh().subscribe(count -> log.info("Seeded the top rated ranking with {} movies", count),
+                ex -> log.error("Seeding the top rated ranking failed", ex));
+    }
+
+    @Scheduled(fixedDelayString = "${reviews.top.refreshInterval:PT5M}", initialDelayString = "${reviews.top.refreshInterval:PT5M}")
+    public void scheduledRefresh() {
+        seed();
+    }
+
+    public Mono<Integer> refresh() {
+        return reviewSummaryRepository.findAll()
+                .collectList()
+                .doOnNext(this::replaceAll)
+                .map(List::size);
+    }
+
+    private record RankingKey(int k, long minCount) {
+    }
+}
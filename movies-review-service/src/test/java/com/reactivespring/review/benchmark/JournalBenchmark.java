@@ -0,0 +1,119 @@
+package com.reactivespring.review.benchmark;
+
+import com.reactivespring.common.journal.SegmentedJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append and read throughput of the {@link SegmentedJournal} in records per millisecond. Appends run against a
+ * journal that rolls and deletes segments during the measurement. The read benchmarks walk a pre-filled journal
+ * of READ_RECORDS records: read returns the mapped slice as served by /stream/journal, readCopy copies every
+ * payload to the heap for comparison, and tail reads the same records through the subscriber Flux.
+ *
+ * <pre>
+ * mvn -pl movies-review-service test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp movies-review-service/target/test-classes:movies-review-service/target/classes:$(cat movies-review-service/target/cp.txt) \
+ *     org.openjdk.jmh.Main JournalBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final int READ_RECORDS = 100_000;
+
+    @Param({"256", "1024"})
+    private int payloadBytes;
+
+    private Path directory;
+    private SegmentedJournal appendJournal;
+    private SegmentedJournal readJournal;
+    private byte[] payload;
+    private long firstOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        payload = new byte[payloadBytes];
+        Arrays.fill(payload, (byte) 'x');
+        appendJournal = new SegmentedJournal(directory.resolve("append"), SEGMENT_SIZE, 4);
+        readJournal = new SegmentedJournal(directory.resolve("read"), SEGMENT_SIZE, 4);
+        firstOffset = readJournal.append(offset -> payload);
+        for (int i = 1; i < READ_RECORDS; i++) {
+            readJournal.append(offset -> payload);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        appendJournal.close();
+        readJournal.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        return appendJournal.append(offset -> payload);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READ_RECORDS)
+    public void read(Blackhole blackhole) {
+        var offset = firstOffset;
+        for (int i = 0; i < READ_RECORDS; i++) {
+            var entry = readJournal.read(offset);
+            blackhole.consume(entry.payload().get(0));
+            offset = entry.nextOffset();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READ_RECORDS)
+    public void readCopy(Blackhole blackhole) {
+        var offset = firstOffset;
+        for (int i = 0; i < READ_RECORDS; i++) {
+            var entry = readJournal.read(offset);
+            var copy = new byte[entry.payload().remaining()];
+            entry.payload().get(copy);
+            blackhole.consume(copy);
+            offset = entry.nextOffset();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READ_RECORDS)
+    public void tail(Blackhole blackhole) {
+        // the first record is skipped, the resume position is the one before it
+        readJournal.tail(firstOffset)
+                .take(READ_RECORDS - 1)
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+}
@@ -0,0 +1,100 @@
+package com.reactivespring.review.benchmark;
+
+import com.reactivespring.review.domain.RatingHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact nearest-rank p10/p50/p90 (copy and sort every rating) against the {@link RatingHistogram} sketch on
+ * synthetic rating sets. Each invocation covers the whole data set, as a summary read would. The teardown
+ * prints the sketch error against the exact values and the memory each approach holds per movie.
+ *
+ * <pre>
+ * mvn -pl movies-review-service test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp movies-review-service/target/test-classes:movies-review-service/target/classes:$(cat movies-review-service/target/cp.txt) \
+ *     org.openjdk.jmh.Main RatingQuantileBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RatingQuantileBenchmark {
+
+    private static final double[] QUANTILES = {0.1, 0.5, 0.9};
+
+    @Param({"1000000", "5000000"})
+    private int reviews;
+
+    private double[] ratings;
+    private RatingHistogram histogram;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(42);
+        ratings = new double[reviews];
+        histogram = new RatingHistogram();
+        for (int i = 0; i < reviews; i++) {
+            ratings[i] = Math.round(Math.min(10.0, Math.max(0.0, 7.5 + random.nextGaussian() * 1.5)) * 10) / 10.0;
+            histogram.add(ratings[i]);
+        }
+    }
+
+    @Benchmark
+    public void exact(Blackhole blackhole) {
+        var sorted = ratings.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            blackhole.consume(sorted[(int) Math.ceil(q * sorted.length) - 1]);
+        }
+    }
+
+    @Benchmark
+    public void sketchBuild(Blackhole blackhole) {
+        var sketch = new RatingHistogram();
+        for (double rating : ratings) {
+            sketch.add(rating);
+        }
+        for (double q : QUANTILES) {
+            blackhole.consume(sketch.quantile(q));
+        }
+    }
+
+    @Benchmark
+    public void sketchRead(Blackhole blackhole) {
+        for (double q : QUANTILES) {
+            blackhole.consume(histogram.quantile(q));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        var sorted = ratings.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            var exact = sorted[(int) Math.ceil(q * sorted.length) - 1];
+            System.out.printf("%n%d reviews q=%.1f exact=%.3f sketch=%.3f error=%.3f", reviews, q, exact,
+                    histogram.quantile(q), Math.abs(exact - histogram.quantile(q)));
+        }
+        System.out.printf("%nmemory per movie: exact=%d bytes, sketch=%d bytes%n",
+                (long) reviews * Double.BYTES, (long) RatingHistogram.BINS * Long.BYTES);
+    }
+}
@@ -1,4 +1,4 @@
-package com.reactivespring.review;
+package com.reactivespring.review.intg;
 
 import org.testcontainers.containers.MongoDBContainer;
 
@@ -0,0 +1,82 @@
+package com.reactivespring.review.intg;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewEvent;
+import com.reactivespring.review.service.ReviewEventFeed;
+import com.reactivespring.review.service.ReviewTopics;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@DataMongoTest
+@ActiveProfiles("test")
+class ReviewEventFeedTest extends AbstractMongodbBaseTest {
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    private final ReviewTopics reviewTopics = mock(ReviewTopics.class);
+
+    private ReviewEventFeed feed(long maxDocuments) {
+        return new ReviewEventFeed(reactiveMongoTemplate, reviewTopics, ReviewEventFeed.Source.FEED,
+                1024 * 1024, maxDocuments, Duration.ofSeconds(5), Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() {
+        reactiveMongoTemplate.dropCollection(ReviewEvent.COLLECTION).block();
+    }
+
+    @Test
+    void writesAreAppendedToACappedCollection() {
+        var feed = feed(100);
+        var review = Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+
+        feed.onAdded(review).block();
+        feed.onUpdated(review).block();
+        feed.onDeleted(review).block();
+
+        var stats = reactiveMongoTemplate.executeCommand(new Document("collStats", ReviewEvent.COLLECTION)).block();
+        assertNotNull(stats);
+        assertTrue(stats.getBoolean("capped"));
+        var types = reactiveMongoTemplate.findAll(ReviewEvent.class).map(ReviewEvent::getType).collectList().block();
+        assertEquals(List.of(ReviewEvent.Type.ADDED, ReviewEvent.Type.UPDATED, ReviewEvent.Type.DELETED), types);
+        // FEED mode publishes through the tail, not on the write path
+        verifyNoInteractions(reviewTopics);
+    }
+
+    @Test
+    void tailDeliversEventsAppendedAfterItStarts() {
+        var feed = feed(100);
+        feed.onAdded(Review.builder().movieInfoId(1L).comment("Before").build()).block();
+
+        StepVerifier.create(feed.tail().map(event -> event.getReview().getComment()))
+                .thenAwait(Duration.ofMillis(500))
+                .then(() -> feed.onAdded(Review.builder().movieInfoId(1L).comment("After").build()).block())
+                .expectNext("After")
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void retentionIsBoundedByMaxDocuments() {
+        var feed = feed(3);
+        for (int i = 0; i < 5; i++) {
+            feed.onAdded(Review.builder().movieInfoId(1L).comment("Review " + i).build()).block();
+        }
+
+        assertEquals(3, reactiveMongoTemplate.count(new Query(), ReviewEvent.class).block());
+    }
+}
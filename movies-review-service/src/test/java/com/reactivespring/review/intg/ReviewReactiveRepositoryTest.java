@@ -0,0 +1,173 @@
+package com.reactivespring.review.intg;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.repository.ReviewCursor;
+import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.repository.ReviewSort;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Slf4j
+public class ReviewReactiveRepositoryTest extends AbstractMongodbBaseTest {
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @BeforeEach
+    void setUpBeforeEach() {
+        log.info("setUpBeforeEach");
+        this.reviewReactiveRepository.saveAll(
+                List.of(Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.2).build(),
+                        Review.builder().movieInfoId(2L).comment("The Dark Knight").rating(9.2).build(),
+                        Review.builder().movieInfoId(3L).comment("The Dark Knight Rises").rating(8.9).build())
+        ).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        log.info("tearDown");
+        this.reviewReactiveRepository.deleteAll().block();
+    }
+
+    @Test
+    void findAllTest() {
+        var reviews = this.reviewReactiveRepository.findAll().log();
+
+        //then
+        StepVerifier.create(reviews)
+                .expectSubscription()
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByMovieInfoIdTest() {
+        var reviews = this.reviewReactiveRepository.findByMovieInfoId(1L).log();
+
+        //then
+        StepVerifier.create(reviews)
+                .expectSubscription()
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void findByMovieInfoIdInTest() {
+        var reviews = this.reviewReactiveRepository.findByMovieInfoIdIn(List.of(1L, 3L)).log();
+
+        //then
+        StepVerifier.create(reviews)
+                .expectSubscription()
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void findPageByRatingTest() {
+        this.reviewReactiveRepository.saveAll(
+                List.of(Review.builder().movieInfoId(1L).comment("Great").rating(9.5).build(),
+                        Review.builder().movieInfoId(1L).comment("Fine").rating(6.0).build(),
+                        Review.builder().movieInfoId(1L).comment("No rating").build())
+        ).blockLast();
+
+        //when
+        var firstPage = this.reviewReactiveRepository.findPage(1L, ReviewSort.RATING, null, 2).collectList().block();
+        var after = ReviewCursor.after(ReviewSort.RATING, firstPage.get(1));
+        var secondPage = this.reviewReactiveRepository.findPage(1L, ReviewSort.RATING, after, 2).log();
+
+        //then
+        assertEquals(List.of(9.5, 8.2), firstPage.stream().map(Review::getRating).toList());
+        StepVerifier.create(secondPage)
+                .expectNextMatches(review -> review.getRating() == 6.0)
+                .expectNextMatches(review -> review.getRating() == null)
+                .verifyComplete();
+    }
+
+
+    @Test
+    void findPageWithMixedIdTypesTest() {
+        //given: ids given by clients are stored as strings, generated ones as ObjectIds
+        this.reviewReactiveRepository.saveAll(
+                List.of(Review.builder().reviewId("review-a").movieInfoId(4L).comment("Heat").rating(8.0).build(),
+                        Review.builder().reviewId("review-b").movieInfoId(4L).comment("Heat").rating(8.0).build(),
+                        Review.builder().movieInfoId(4L).comment("Heat").rating(8.0).build(),
+                        Review.builder().movieInfoId(4L).comment("Heat").rating(8.0).build())
+        ).blockLast();
+
+        for (var sort : ReviewSort.values()) {
+            //when: one review per page
+            var seen = new ArrayList<String>();
+            ReviewCursor after = null;
+            for (int page = 0; page < 5; page++) {
+                var review = this.reviewReactiveRepository.findPage(4L, sort, after, 1).blockFirst();
+                if (review == null) {
+                    break;
+                }
+                seen.add(review.getReviewId());
+                after = ReviewCursor.after(sort, review);
+            }
+
+            //then: every review once, the ObjectIds before the strings
+            assertEquals(4, seen.size(), sort + " pages " + seen);
+            assertEquals(4, new HashSet<>(seen).size(), sort + " pages " + seen);
+            assertEquals(List.of("review-b", "review-a"), seen.subList(2, 4), sort + " pages " + seen);
+        }
+    }
+
+    @Test
+    void updateCommentAndRatingReturnsThePreviousReview() {
+        //given
+        var review = this.reviewReactiveRepository.findByMovieInfoId(1L).blockFirst();
+
+        //when
+        var previous = this.reviewReactiveRepository.updateCommentAndRating(review.getReviewId(), "Batman Begins Updated", null);
+
+        //then
+        StepVerifier.create(previous)
+                .assertNext(old -> {
+                    assertEquals("Batman Begins", old.getComment());
+                    assertEquals(8.2, old.getRating());
+                })
+                .verifyComplete();
+        StepVerifier.create(this.reviewReactiveRepository.findById(review.getReviewId()))
+                .assertNext(updated -> {
+                    assertEquals("Batman Begins Updated", updated.getComment());
+                    assertNull(updated.getRating());
+                })
+                .verifyComplete();
+        StepVerifier.create(this.reviewReactiveRepository.updateCommentAndRating("missing", "comment", 5.0))
+                .verifyComplete();
+    }
+
+    @Test
+    void removeByIdReturnsTheReviewOnlyOnce() {
+        //given
+        var review = this.reviewReactiveRepository.findByMovieInfoId(1L).blockFirst();
+
+        //when
+        var removed = this.reviewReactiveRepository.removeById(review.getReviewId());
+
+        //then: a second removal of the same review finds nothing
+        StepVerifier.create(removed)
+                .assertNext(old -> assertEquals(review.getReviewId(), old.getReviewId()))
+                .verifyComplete();
+        StepVerifier.create(this.reviewReactiveRepository.removeById(review.getReviewId()))
+                .verifyComplete();
+        StepVerifier.create(this.reviewReactiveRepository.findById(review.getReviewId()))
+                .verifyComplete();
+    }
+}
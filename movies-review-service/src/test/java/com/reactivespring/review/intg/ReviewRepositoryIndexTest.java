@@ -0,0 +1,124 @@
+package com.reactivespring.review.intg;
+
+import com.reactivespring.common.repository.IndexVerifier;
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.repository.ReviewSort;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(IndexVerifier.class)
+class ReviewRepositoryIndexTest extends AbstractMongodbBaseTest {
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired
+    private IndexVerifier indexVerifier;
+
+    @BeforeEach
+    void setUp() {
+        // auto-index-creation runs in the background, verify waits for the indexes
+        indexVerifier.verify(Review.class).block();
+        reviewReactiveRepository.saveAll(List.of(
+                Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.2).build(),
+                Review.builder().movieInfoId(1L).comment("Batman Begins again").rating(9.0).build(),
+                Review.builder().movieInfoId(2L).comment("The Dark Knight").rating(9.2).build())
+        ).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+    }
+
+    // the plan stages of the winning plan, nested stages included
+    private static List<String> winningStages(Document explain) {
+        var stages = new ArrayList<String>();
+        collectStages(explain.get("queryPlanner", Document.class).get("winningPlan"), stages);
+        return stages;
+    }
+
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.containsKey("stage")) {
+                stages.add(document.getString("stage"));
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+
+    private Document explain(Query query) {
+        return reactiveMongoTemplate.getCollection(reactiveMongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.find(query.getQueryObject()).sort(query.getSortObject()).explain()))
+                .block();
+    }
+
+    @Test
+    void declaredIndexesExist() {
+        StepVerifier.create(indexVerifier.missingIndexes(Review.class))
+                .verifyComplete();
+    }
+
+    private static void assertIndexScan(List<String> stages) {
+        assertTrue(stages.contains("IXSCAN"), stages.toString());
+        assertFalse(stages.contains("COLLSCAN"), stages.toString());
+        assertFalse(stages.contains("SORT"), stages.toString());
+    }
+
+    @Test
+    void findByMovieInfoIdUsesAMovieInfoIdIndex() {
+        StepVerifier.create(reviewReactiveRepository.findByMovieInfoId(1L))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        // the filter findByMovieInfoId derives
+        assertIndexScan(winningStages(explain(Query.query(Criteria.where("movieInfoId").is(1L)))));
+    }
+
+    @Test
+    void findByMovieInfoIdInUsesAMovieInfoIdIndex() {
+        StepVerifier.create(reviewReactiveRepository.findByMovieInfoIdIn(List.of(1L, 2L)))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        // the filter findByMovieInfoIdIn derives
+        assertIndexScan(winningStages(explain(Query.query(Criteria.where("movieInfoId").in(1L, 2L)))));
+    }
+
+    @Test
+    void pagedQueriesUseAnIndexForTheirOrder() {
+        StepVerifier.create(reviewReactiveRepository.findPage(1L, ReviewSort.RATING, null, 10))
+                .expectNextCount(2)
+                .verifyComplete();
+
+        // the filters and orders of findPage, reviewId is stored as _id
+        assertIndexScan(winningStages(explain(Query.query(Criteria.where("movieInfoId").is(1L))
+                .with(Sort.by(Sort.Direction.DESC, "_id")))));
+        assertIndexScan(winningStages(explain(Query.query(Criteria.where("movieInfoId").is(1L))
+                .with(Sort.by(Sort.Direction.DESC, "rating", "_id")))));
+        assertIndexScan(winningStages(explain(new Query().with(Sort.by(Sort.Direction.DESC, "rating", "_id")))));
+    }
+}
@@ -1,4 +1,4 @@
-package com.reactivespring.review;
+package com.reactivespring.review.intg;
 
 import com.reactivespring.review.domain.Review;
 import com.reactivespring.review.repository.ReviewReactiveRepository;
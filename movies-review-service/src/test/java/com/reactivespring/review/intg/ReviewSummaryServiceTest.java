@@ -0,0 +1,159 @@
+package com.reactivespring.review.intg;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.repository.ReviewSummaryRepository;
+import com.reactivespring.review.service.ReviewSummaryService;
+import com.reactivespring.review.service.TopRatedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import({ReviewSummaryService.class, TopRatedService.class, SimpleMeterRegistry.class})
+class ReviewSummaryServiceTest extends AbstractMongodbBaseTest {
+    @Autowired
+    private ReviewSummaryService reviewSummaryService;
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+    @Autowired
+    private ReviewSummaryRepository reviewSummaryRepository;
+    @Autowired
+    private TopRatedService topRatedService;
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+        reviewSummaryRepository.deleteAll().block();
+    }
+
+    @Test
+    void summaryFollowsAddUpdateAndDelete() {
+        //given
+        var low = add(Review.builder().movieInfoId(1L).comment("Fine").rating(6.0).build());
+        add(Review.builder().movieInfoId(1L).comment("Great").rating(9.0).build());
+        add(Review.builder().movieInfoId(1L).comment("No rating").build());
+
+        //then
+        var summary = summary(1L);
+        assertEquals(3, summary.getCount());
+        assertEquals(2, summary.getRatingCount());
+        assertEquals(7.5, summary.getAverage());
+        assertEquals(6.0, summary.getMin());
+        assertEquals(9.0, summary.getMax());
+        assertEquals(Map.of("6.0", 1L, "9.0", 1L), summary.getHistogram());
+
+        //when the minimum rating is raised
+        low.setRating(8.0);
+        reviewReactiveRepository.save(low).block();
+        reviewSummaryService.onUpdated(6.0, low).block();
+
+        //then
+        summary = summary(1L);
+        assertEquals(8.5, summary.getAverage());
+        assertEquals(8.0, summary.getMin());
+        assertEquals(Map.of("8.0", 1L, "9.0", 1L), summary.getHistogram());
+
+        //when
+        reviewReactiveRepository.delete(low).block();
+        reviewSummaryService.onDeleted(low).block();
+
+        //then
+        summary = summary(1L);
+        assertEquals(2, summary.getCount());
+        assertEquals(9.0, summary.getMin());
+        assertEquals(9.0, summary.getMax());
+    }
+
+    @Test
+    void summaryOfLastReviewIsRemoved() {
+        //given
+        var review = add(Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.0).build());
+
+        //when
+        reviewReactiveRepository.delete(review).block();
+        reviewSummaryService.onDeleted(review).block();
+
+        //then
+        assertNull(reviewSummaryRepository.findById(1L).block());
+        assertTrue(topRatedService.top(10, 1).isEmpty());
+    }
+
+    @Test
+    void rebuildRecomputesFromReviews() {
+        //given
+        reviewReactiveRepository.saveAll(List.of(
+                Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.0).build(),
+                Review.builder().movieInfoId(1L).comment("Batman Begins").rating(9.0).build(),
+                Review.builder().movieInfoId(2L).comment("The Dark Knight").rating(9.2).build())).blockLast();
+        reviewSummaryRepository.save(ReviewSummary.builder().movieInfoId(3L).count(5).build()).block();
+
+        //when
+        var rebuilt = reviewSummaryService.rebuild().block();
+
+        //then
+        assertEquals(2L, rebuilt);
+        assertEquals(8.5, summary(1L).getAverage());
+        assertEquals(Map.of("8.0", 1L, "9.0", 1L), summary(1L).getHistogram());
+        assertEquals(1, summary(2L).getCount());
+        assertNull(reviewSummaryRepository.findById(3L).block());
+        assertEquals(List.of(2L, 1L), topRatedService.top(10, 1).stream().map(TopRatedMovie::getMovieInfoId).toList());
+    }
+
+    @Test
+    void recomputeOnlyReplacesMinAndMax() {
+        //given
+        add(Review.builder().movieInfoId(1L).comment("Fine").rating(6.0).build());
+        add(Review.builder().movieInfoId(1L).comment("Great").rating(9.0).build());
+        // as if an increment of another write landed while the reviews were aggregated
+        reviewSummaryRepository.save(ReviewSummary.builder().movieInfoId(1L).count(3).ratingCount(3).sum(23.0)
+                .min(1.0).max(10.0).ratingBins(Map.of("60", 1L, "90", 1L, "80", 1L)).build()).block();
+
+        //when
+        reviewSummaryService.recompute(1L).block();
+
+        //then
+        var summary = summary(1L);
+        assertEquals(3, summary.getCount());
+        assertEquals(23.0, summary.getSum());
+        assertEquals(6.0, summary.getMin());
+        assertEquals(9.0, summary.getMax());
+    }
+
+    @Test
+    void rebuildKeepsSummariesUpdatedAfterItStarted() {
+        //given
+        add(Review.builder().movieInfoId(1L).comment("Fine").rating(6.0).build());
+        reviewSummaryRepository.save(ReviewSummary.builder().movieInfoId(1L).count(2).ratingCount(2).sum(15.0)
+                .min(6.0).max(9.0).updatedAt(Instant.now().plusSeconds(60)).build()).block();
+
+        //when
+        reviewSummaryService.rebuild().block();
+
+        //then
+        assertEquals(2, summary(1L).getCount());
+    }
+
+    private Review add(Review review) {
+        var saved = reviewReactiveRepository.save(review).block();
+        reviewSummaryService.onAdded(saved).block();
+        return saved;
+    }
+
+    private ReviewSummary summary(Long movieInfoId) {
+        return reviewSummaryRepository.findById(movieInfoId).block();
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.review.domain.RatingHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingHistogramTest {
+
+    @Test
+    void quantilesStayWithinOneBinOfExactOnSyntheticRatings() {
+        var random = new Random(42);
+        var ratings = new double[1_000_000];
+        var histogram = new RatingHistogram();
+        for (int i = 0; i < ratings.length; i++) {
+            // skewed towards high ratings, rounded to one decimal like user input
+            ratings[i] = Math.round(Math.min(10.0, Math.max(0.0, 7.5 + random.nextGaussian() * 1.5)) * 10) / 10.0;
+            histogram.add(ratings[i]);
+        }
+        Arrays.sort(ratings);
+
+        for (double q : new double[]{0.1, 0.5, 0.9}) {
+            var exact = ratings[(int) Math.ceil(q * ratings.length) - 1];
+            assertEquals(exact, histogram.quantile(q), RatingHistogram.BIN_WIDTH, "q=" + q);
+        }
+        assertEquals(ratings.length, histogram.count());
+    }
+
+    @Test
+    void mergedSketchesMatchOneSketchOverAllRatings() {
+        var random = new Random(7);
+        var left = new RatingHistogram();
+        var right = new RatingHistogram();
+        var all = new RatingHistogram();
+        for (int i = 0; i < 10_000; i++) {
+            var rating = random.nextDouble() * 10;
+            (i % 2 == 0 ? left : right).add(rating);
+            all.add(rating);
+        }
+
+        left.merge(right);
+
+        assertEquals(all.toHistogram(), left.toHistogram());
+        assertEquals(all.quantile(0.5), left.quantile(0.5));
+    }
+
+    @Test
+    void binsRoundTripThroughStoredForm() {
+        assertEquals(3, RatingHistogram.binOf(0.3));
+        assertEquals(RatingHistogram.BINS - 1, RatingHistogram.binOf(10.0));
+        assertEquals(RatingHistogram.BINS - 1, RatingHistogram.binOf(42.0));
+
+        var histogram = RatingHistogram.fromBins(Map.of("82", 2L, "90", 1L, "95", 0L));
+
+        assertEquals(Map.of("8.2", 2L, "9.0", 1L), histogram.toHistogram());
+        assertEquals(8.3, histogram.quantile(0.5), 1e-9);
+        assertNull(new RatingHistogram().quantile(0.5));
+    }
+}
@@ -0,0 +1,108 @@
+package com.reactivespring.review.unit;
+
+import com.mongodb.MongoException;
+import com.reactivespring.review.domain.ReviewEvent;
+import com.reactivespring.review.service.ReviewEventFeed;
+import com.reactivespring.review.service.ReviewTopics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReviewEventFeedUnitTest {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+    private final ReviewEventFeed feed = new ReviewEventFeed(reactiveMongoTemplate, mock(ReviewTopics.class),
+            ReviewEventFeed.Source.FEED, 1024 * 1024, 100_000, Duration.ofSeconds(5), Duration.ofMillis(10));
+
+    @BeforeEach
+    void setUp() {
+        var cappedCollection = new Document("options", new Document("capped", true));
+        when(reactiveMongoTemplate.executeCommand(any(Document.class)))
+                .thenReturn(Mono.just(new Document("cursor", new Document("firstBatch", List.of(cappedCollection)))));
+    }
+
+    private static ReviewEvent event(ObjectId id) {
+        return ReviewEvent.builder().id(id).type(ReviewEvent.Type.ADDED).build();
+    }
+
+    @Test
+    void firstTailDeliversEventsAppendedWithAnOlderIdThanTheNewest() {
+        var now = new Date();
+        var newest = event(new ObjectId(now, 1));
+        // appended after the tail started by an instance whose clock is a second behind
+        var skewed = event(new ObjectId(new Date(now.getTime() - 1000), 2));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(ReviewEvent.class))).thenReturn(Mono.just(newest));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(ReviewEvent.class))).thenReturn(Flux.just(newest));
+        when(reactiveMongoTemplate.tail(any(Query.class), eq(ReviewEvent.class)))
+                .thenReturn(Flux.just(skewed, newest).concatWith(Flux.never()));
+
+        StepVerifier.create(feed.tail().map(ReviewEvent::getId))
+                .expectNext(skewed.getId())
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        var query = ArgumentCaptor.forClass(Query.class);
+        verify(reactiveMongoTemplate).tail(query.capture(), eq(ReviewEvent.class));
+        var windowStart = ObjectId.getSmallestWithDate(new Date(now.getTime() / 1000 * 1000 - 5000));
+        assertEquals(windowStart, query.getValue().getQueryObject().get("_id", Document.class).get("$gte"));
+    }
+
+    @Test
+    void resumedTailStillSkipsTheEventsThatPrecededIt() {
+        var newest = event(new ObjectId());
+        var appended = event(new ObjectId());
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(ReviewEvent.class))).thenReturn(Mono.just(newest));
+        when(reactiveMongoTemplate.find(any(Query.class), eq(ReviewEvent.class))).thenReturn(Flux.just(newest));
+        when(reactiveMongoTemplate.tail(any(Query.class), eq(ReviewEvent.class)))
+                .thenReturn(Flux.error(new MongoException("connection reset")),
+                        Flux.just(newest, appended).concatWith(Flux.never()));
+
+        // the event appended during the outage is delivered, the one that preceded the tail is not
+        StepVerifier.create(feed.tail().map(ReviewEvent::getId))
+                .expectNext(appended.getId())
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        verify(reactiveMongoTemplate, times(2)).tail(any(Query.class), eq(ReviewEvent.class));
+        verify(reactiveMongoTemplate, times(1)).findOne(any(Query.class), eq(ReviewEvent.class));
+        verify(reactiveMongoTemplate, times(1)).find(any(Query.class), eq(ReviewEvent.class));
+    }
+
+    @Test
+    void everyEventWithinTheResumeWindowIsReadOnce() {
+        var second = new Date();
+        var events = IntStream.range(0, 2000).mapToObj(i -> event(new ObjectId(second, i))).toList();
+        var appended = event(new ObjectId(second, 2000));
+        when(reactiveMongoTemplate.findOne(any(Query.class), eq(ReviewEvent.class))).thenReturn(Mono.empty());
+        // the resumed tail reads the whole window again before the event appended meanwhile
+        when(reactiveMongoTemplate.tail(any(Query.class), eq(ReviewEvent.class)))
+                .thenReturn(Flux.fromIterable(events),
+                        Flux.fromIterable(events).concatWith(Flux.just(appended)).concatWith(Flux.never()));
+
+        StepVerifier.create(feed.tail())
+                .expectNextCount(events.size())
+                .expectNextMatches(event -> event.getId().equals(appended.getId()))
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+}
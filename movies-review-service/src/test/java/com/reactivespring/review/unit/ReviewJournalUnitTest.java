@@ -0,0 +1,124 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.review.handler.ReviewHandler;
+import com.reactivespring.review.journal.ReviewJournal;
+import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.router.ReviewRouter;
+import com.reactivespring.review.service.ReviewEventFeed;
+import com.reactivespring.review.service.ReviewSummaryService;
+import com.reactivespring.review.service.ReviewTopics;
+import com.reactivespring.review.service.TopRatedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.FileSystemUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(properties = "reviews.stream.journal.enabled=true")
+@AutoConfigureWebTestClient
+@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class, ReviewJournal.class,
+        SimpleMeterRegistry.class})
+// every test journals into a new directory, which is deleted after it
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReviewJournalUnitTest {
+
+    private static final Path JOURNAL_DIRECTORY =
+            Path.of(System.getProperty("java.io.tmpdir"), "reviews-journal-" + UUID.randomUUID());
+
+    @MockBean
+    private ReviewReactiveRepository reviewReactiveRepository;
+    @MockBean
+    private ReviewSummaryService reviewSummaryService;
+    @MockBean
+    private TopRatedService topRatedService;
+    @MockBean
+    private ReviewTopics reviewTopics;
+    @MockBean
+    private ReviewEventFeed reviewEventFeed;
+    @Autowired
+    private ReviewJournal reviewJournal;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("reviews.stream.journal.directory", JOURNAL_DIRECTORY::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(reviewSummaryService.onAdded(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewSummaryService.onDeleted(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.onAdded(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.onDeleted(isA(Review.class))).thenReturn(Mono.empty());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        reviewJournal.close();
+        FileSystemUtils.deleteRecursively(JOURNAL_DIRECTORY);
+    }
+
+    @Test
+    void reviewJournalStreamTest() {
+        //given
+        var saved = Review.builder().reviewId("journal").movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+        when(reviewReactiveRepository.save(isA(Review.class))).thenReturn(Mono.just(saved));
+        when(reviewReactiveRepository.removeById("journal")).thenReturn(Mono.just(saved));
+        webTestClient.post()
+                .uri("/v1/reviews")
+                .bodyValue(Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.2).build())
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete()
+                .uri("/v1/reviews/journal")
+                .exchange()
+                .expectStatus().isOk();
+
+        //when: an offset that is not a record replays what is retained after a reset line
+        var lines = webTestClient.get()
+                .uri("/v1/reviews/stream/journal?after=1")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody();
+
+        //then
+        StepVerifier.create(lines.filter(line -> line.contains("reset") || line.contains("\"reviewId\":\"journal\"")).take(3))
+                .expectNext("{\"reset\":true}")
+                .assertNext(line -> assertTrue(line.matches("\\{\"offset\":\\d+,\"type\":\"ADDED\",\"event\":\\{.*")))
+                .assertNext(line -> assertTrue(line.contains("\"type\":\"DELETED\"")))
+                .verifyComplete();
+    }
+
+    @Test
+    void reviewJournalStreamInvalidOffsetTest() {
+        webTestClient.get()
+                .uri("/v1/reviews/stream/journal?after=abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Invalid offset: abc");
+    }
+}
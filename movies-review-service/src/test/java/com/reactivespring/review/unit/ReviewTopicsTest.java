@@ -0,0 +1,91 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.common.util.SlowConsumerPolicy;
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.service.ReviewTopics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewTopicsTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReviewTopics reviewTopics = new ReviewTopics(Duration.ofMinutes(1), Duration.ofMillis(10),
+            new SlowConsumerPolicy(SlowConsumerPolicy.OverflowStrategy.DROP_OLDEST, 16, 0, meterRegistry), clock, meterRegistry);
+
+    @Test
+    void subscribersOnlyReceiveReviewsOfTheirMovie() {
+        StepVerifier.create(reviewTopics.subscribe(1L).map(Review::getComment))
+                .then(() -> {
+                    reviewTopics.publish(review(2L, "other movie"));
+                    reviewTopics.publish(review(1L, "Batman Begins"));
+                })
+                .expectNext("Batman Begins")
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, reviewTopics.topicCount());
+    }
+
+    @Test
+    void reviewsWithoutSubscribersCreateNoTopic() {
+        reviewTopics.publish(review(3L, "nobody listening"));
+
+        assertEquals(0, reviewTopics.topicCount());
+    }
+
+    @Test
+    void idleTopicsAreEvictedAfterTheTimeout() {
+        var subscription = reviewTopics.subscribe(1L).subscribe();
+        reviewTopics.subscribe(2L).take(1).subscribe();
+
+        clock.advance(Duration.ofMinutes(2));
+        reviewTopics.evictIdleTopics();
+        assertEquals(2, reviewTopics.topicCount());
+
+        subscription.dispose();
+        clock.advance(Duration.ofSeconds(30));
+        reviewTopics.evictIdleTopics();
+        assertEquals(2, reviewTopics.topicCount());
+
+        clock.advance(Duration.ofSeconds(31));
+        reviewTopics.evictIdleTopics();
+        assertEquals(1, reviewTopics.topicCount());
+    }
+
+    private static Review review(Long movieInfoId, String comment) {
+        return Review.builder().reviewId(comment).movieInfoId(movieInfoId).comment(comment).rating(8.0).build();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,474 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.review.domain.Review;
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+import com.reactivespring.review.domain.TopRatedRanking;
+import com.reactivespring.review.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.review.handler.ReviewHandler;
+import com.reactivespring.review.journal.ReviewJournal;
+import com.reactivespring.review.repository.ReviewCursor;
+import com.reactivespring.review.repository.ReviewReactiveRepository;
+import com.reactivespring.review.repository.ReviewSort;
+import com.reactivespring.review.router.ReviewRouter;
+import com.reactivespring.review.service.ReviewEventFeed;
+import com.reactivespring.review.service.ReviewSummaryService;
+import com.reactivespring.review.service.ReviewTopics;
+import com.reactivespring.review.service.TopRatedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest
+@AutoConfigureWebTestClient
+@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class, ReviewJournal.class,
+        SimpleMeterRegistry.class})
+@Slf4j
+class ReviewsUnitTest {
+
+    @MockBean
+    private ReviewReactiveRepository reviewReactiveRepository;
+    @MockBean
+    private ReviewSummaryService reviewSummaryService;
+    @MockBean
+    private TopRatedService topRatedService;
+    @MockBean
+    private ReviewTopics reviewTopics;
+    @MockBean
+    private ReviewEventFeed reviewEventFeed;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        when(reviewSummaryService.onAdded(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewSummaryService.onUpdated(any(), isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewSummaryService.onDeleted(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.onAdded(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.onUpdated(isA(Review.class))).thenReturn(Mono.empty());
+        when(reviewEventFeed.onDeleted(isA(Review.class))).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void addReviewTest() {
+        //given
+        var review = Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+        when(reviewReactiveRepository.save(isA(Review.class)))
+                .thenReturn(Mono.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins")
+                        .rating(8.2).build()));
+
+        //when
+        var response = webTestClient.post()
+                .uri("/v1/reviews/add")
+                .body(Mono.just(review), Review.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals("abc", response.getReviewId());
+        assertEquals(review.getMovieInfoId(), response.getMovieInfoId());
+        assertEquals(review.getComment(), response.getComment());
+        assertEquals(review.getRating(), response.getRating());
+    }
+
+    @Test
+    void getAllReviewsTest() {
+        //given
+        when(reviewReactiveRepository.findAll())
+                .thenReturn(Flux.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins")
+                                .rating(8.2).build(),
+                        Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins")
+                                .rating(8.2).build(),
+                        Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins")
+                                .rating(8.2).build()));
+
+        //when
+        var response = webTestClient.get()
+                .uri("/v1/reviews/all")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(3, response.size());
+    }
+
+    @Test
+    void updateReviewTest() {
+        //given
+        var review = Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins Updated").rating(8.2).build();
+        when(reviewReactiveRepository.updateCommentAndRating("abc", "Batman Begins Updated", 8.2))
+                .thenReturn(Mono.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(7.0).build()));
+
+        //when
+        var response = webTestClient.put()
+                .uri("/v1/reviews/abc")
+                .body(Mono.just(review), Review.class)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(review.getReviewId(), response.getReviewId());
+        assertEquals(review.getMovieInfoId(), response.getMovieInfoId());
+        assertEquals(review.getComment(), response.getComment());
+        assertEquals(review.getRating(), response.getRating());
+        // the summary moves from the rating the atomic update replaced
+        verify(reviewSummaryService).onUpdated(eq(7.0), isA(Review.class));
+    }
+
+    @Test
+    void deleteReviewTest() {
+        //given
+        when(reviewReactiveRepository.removeById(isA(String.class)))
+                .thenReturn(Mono.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build()));
+
+        //when
+        webTestClient.delete()
+                .uri("/v1/reviews/abc")
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+    }
+
+    @Test
+    void addReviewValidationTest() {
+        //given
+        var review = Review.builder().movieInfoId(null).comment("Batman Begins").rating(-9.0).build();
+        when(reviewReactiveRepository.save(isA(Review.class)))
+                .thenReturn(Mono.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins")
+                        .rating(8.2).build()));
+
+        //when
+        webTestClient.post()
+                .uri("/v1/reviews/add")
+                .body(Mono.just(review), Review.class)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("review.movieInfoId : must not be null, review.rating : must be greater than or equal to 1");
+    }
+
+    @Test
+    void updateReviewNotFoundExceptionTest() {
+        //given
+        var review = Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins Updated").rating(8.2).build();
+        when(reviewReactiveRepository.updateCommentAndRating(eq("abc"), any(), any()))
+                .thenReturn(Mono.empty());
+
+        //when
+        webTestClient.put()
+                .uri("/v1/reviews/abc")
+                .body(Mono.just(review), Review.class)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class)
+                .isEqualTo("Review not found for given review id: abc");
+    }
+
+    @Test
+    void getReviewsByMovieInfoIdsTest() {
+        //given
+        when(reviewReactiveRepository.findByMovieInfoIdIn(List.of(1L, 2L)))
+                .thenReturn(Flux.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build(),
+                        Review.builder().reviewId("def").movieInfoId(2L).comment("The Dark Knight").rating(9.2).build()));
+
+        //when
+        var response = webTestClient.get()
+                .uri("/v1/reviews?movieInfoIds=1,2,1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(response);
+        assertEquals(2, response.size());
+    }
+
+    @Test
+    void getReviewsByMovieInfoIdsInvalidIdTest() {
+        webTestClient.get()
+                .uri("/v1/reviews?movieInfoIds=1,abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("Invalid movieInfoIds: 1,abc");
+    }
+
+    @Test
+    void getReviewsPageTest() {
+        //given
+        var newest = Review.builder().reviewId("c").movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+        var older = Review.builder().reviewId("b").movieInfoId(1L).comment("Batman Begins").rating(9.0).build();
+        var oldest = Review.builder().reviewId("a").movieInfoId(1L).comment("Batman Begins").rating(7.5).build();
+        when(reviewReactiveRepository.findPage(1L, ReviewSort.NEWEST, null, 3))
+                .thenReturn(Flux.just(newest, older, oldest));
+
+        //when
+        var result = webTestClient.get()
+                .uri("/v1/reviews?movieInfoId=1&limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .returnResult();
+
+        //then
+        var response = result.getResponseBody();
+        assertNotNull(response);
+        assertEquals(List.of("c", "b"), response.stream().map(Review::getReviewId).toList());
+        var cursor = ReviewCursor.decode(result.getResponseHeaders().getFirst(ReviewHandler.NEXT_CURSOR_HEADER), ReviewSort.NEWEST);
+        assertEquals("b", cursor.getReviewId());
+    }
+
+    @Test
+    void getReviewsLastPageTest() {
+        //given
+        var cursor = new ReviewCursor(ReviewSort.RATING, 8.2, "c");
+        when(reviewReactiveRepository.findPage(eq(1L), eq(ReviewSort.RATING), isA(ReviewCursor.class), eq(3)))
+                .thenReturn(Flux.just(Review.builder().reviewId("a").movieInfoId(1L).comment("Batman Begins").rating(7.5).build()));
+
+        //when
+        webTestClient.get()
+                .uri("/v1/reviews?movieInfoId=1&limit=2&sort=rating&after={after}", cursor.encode())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(ReviewHandler.NEXT_CURSOR_HEADER)
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviewsPageInvalidLimitTest() {
+        webTestClient.get()
+                .uri("/v1/reviews?movieInfoId=1&limit=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("limit must be between 1 and 500, got 0");
+    }
+
+    @Test
+    void reviewCursorRoundTripsAnyIdTest() {
+        var cursor = ReviewCursor.decode(new ReviewCursor(ReviewSort.RATING, 8.2, "a|b.c").encode(), ReviewSort.RATING);
+
+        assertEquals(8.2, cursor.getRating());
+        assertEquals("a|b.c", cursor.getReviewId());
+    }
+
+    @Test
+    void getReviewsPageCursorForOtherSortTest() {
+        var cursor = new ReviewCursor(ReviewSort.NEWEST, null, "c");
+
+        webTestClient.get()
+                .uri("/v1/reviews?movieInfoId=1&limit=2&sort=rating&after={after}", cursor.encode())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getReviewSummariesTest() {
+        //given
+        when(reviewSummaryService.findByMovieInfoIds(List.of(1L, 2L)))
+                .thenReturn(Flux.just(ReviewSummary.builder().movieInfoId(1L).count(2).ratingCount(2).sum(17.0).min(8.0).max(9.0)
+                                .ratingBins(Map.of("80", 1L, "90", 1L)).build(),
+                        ReviewSummary.builder().movieInfoId(2L).count(1).ratingCount(0).build()));
+
+        //when
+        webTestClient.get()
+                .uri("/v1/reviews/summary?movieInfoIds=1,2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].movieInfoId").isEqualTo(1)
+                .jsonPath("$[0].count").isEqualTo(2)
+                .jsonPath("$[0].average").isEqualTo(8.5)
+                .jsonPath("$[0].min").isEqualTo(8.0)
+                .jsonPath("$[0].max").isEqualTo(9.0)
+                .jsonPath("$[0].p50").isEqualTo(8.1)
+                .jsonPath("$[0].histogram['9.0']").isEqualTo(1)
+                .jsonPath("$[0].ratingBins").doesNotExist()
+                .jsonPath("$[1].average").doesNotExist();
+    }
+
+    @Test
+    void getReviewSummariesWithoutIdsTest() {
+        webTestClient.get()
+                .uri("/v1/reviews/summary")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("movieInfoIds must be provided");
+    }
+
+    @Test
+    void rebuildReviewSummariesTest() {
+        //given
+        when(reviewSummaryService.rebuild()).thenReturn(Mono.just(3L));
+
+        //when
+        webTestClient.post()
+                .uri("/v1/reviews/summary/rebuild")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.summaries").isEqualTo(3);
+    }
+
+    @Test
+    void deleteReviewUpdatesSummaryTest() {
+        //given
+        var review = Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+        when(reviewReactiveRepository.removeById("abc")).thenReturn(Mono.just(review));
+
+        //when
+        webTestClient.delete()
+                .uri("/v1/reviews/{id}", "abc")
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+        verify(reviewSummaryService).onDeleted(review);
+    }
+
+    @Test
+    void deleteReviewAlreadyRemovedTest() {
+        //given: a concurrent delete removed the review first
+        when(reviewReactiveRepository.removeById("abc")).thenReturn(Mono.empty());
+
+        //when
+        webTestClient.delete()
+                .uri("/v1/reviews/{id}", "abc")
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+        verify(reviewSummaryService, never()).onDeleted(any());
+        verify(reviewEventFeed, never()).onDeleted(any());
+    }
+
+    @Test
+    void getTopRatedTest() {
+        //given
+        when(topRatedService.top(2, 5))
+                .thenReturn(List.of(new TopRatedMovie(1, 2L, 9.2, 12), new TopRatedMovie(2, 1L, 8.4, 7)));
+
+        //when
+        webTestClient.get()
+                .uri("/v1/reviews/top?k=2&minCount=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].rank").isEqualTo(1)
+                .jsonPath("$[0].movieInfoId").isEqualTo(2)
+                .jsonPath("$[1].average").isEqualTo(8.4);
+    }
+
+    @Test
+    void getTopRatedInvalidKTest() {
+        webTestClient.get()
+                .uri("/v1/reviews/top?k=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("k must be between 1 and 100, got 0");
+    }
+
+    @Test
+    void getTopRatedStreamTest() {
+        //given
+        when(topRatedService.topStream(10, 1))
+                .thenReturn(Flux.just(new TopRatedRanking(List.of(new TopRatedMovie(1, 1L, 8.0, 1))),
+                        new TopRatedRanking(List.of(new TopRatedMovie(1, 2L, 9.0, 1), new TopRatedMovie(2, 1L, 8.0, 1)))));
+
+        //when
+        var rankings = webTestClient.get()
+                .uri("/v1/reviews/top/stream")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(TopRatedRanking.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        //then
+        assertNotNull(rankings);
+        assertEquals(2, rankings.size());
+        assertEquals(2L, rankings.get(1).getMovies().get(0).getMovieInfoId());
+    }
+
+    @Test
+    void getReviewsStreamForMovieTest() {
+        //given
+        when(reviewTopics.subscribe(1L))
+                .thenReturn(Flux.just(Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build()));
+
+        //when
+        var reviews = webTestClient.get()
+                .uri("/v1/reviews/stream?movieInfoId=1")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(Review.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        //then
+        assertNotNull(reviews);
+        assertEquals(1, reviews.size());
+        assertEquals("abc", reviews.get(0).getReviewId());
+    }
+
+    @Test
+    void addReviewPublishesToMovieTopicTest() {
+        //given
+        var saved = Review.builder().reviewId("abc").movieInfoId(1L).comment("Batman Begins").rating(8.2).build();
+        when(reviewReactiveRepository.save(isA(Review.class))).thenReturn(Mono.just(saved));
+
+        //when
+        webTestClient.post()
+                .uri("/v1/reviews")
+                .bodyValue(Review.builder().movieInfoId(1L).comment("Batman Begins").rating(8.2).build())
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+        verify(reviewEventFeed).onAdded(saved);
+    }
+}
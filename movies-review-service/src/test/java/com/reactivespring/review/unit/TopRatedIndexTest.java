@@ -0,0 +1,53 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+import com.reactivespring.review.service.TopRatedIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopRatedIndexTest {
+
+    private final TopRatedIndex index = new TopRatedIndex();
+
+    @Test
+    void topKSkipsMoviesUnderTheReviewCountThreshold() {
+        index.update(summary(1L, 3, 27.0));
+        index.update(summary(2L, 1, 10.0));
+        index.update(summary(3L, 4, 32.0));
+        index.update(summary(4L, 2, 14.0));
+
+        assertEquals(List.of(new TopRatedMovie(1, 1L, 9.0, 3), new TopRatedMovie(2, 3L, 8.0, 4)), index.top(2, 2));
+        assertEquals(2L, index.top(1, 0).get(0).getMovieInfoId());
+    }
+
+    @Test
+    void updatesMoveMoviesAndRemovalsDropThem() {
+        index.update(summary(1L, 2, 18.0));
+        index.update(summary(2L, 2, 16.0));
+
+        assertTrue(index.update(summary(2L, 3, 28.5)));
+        assertEquals(List.of(2L, 1L), index.top(10, 1).stream().map(TopRatedMovie::getMovieInfoId).toList());
+
+        assertFalse(index.update(summary(2L, 3, 28.5)));
+        assertTrue(index.update(summary(1L, 0, 0.0)));
+        assertEquals(1, index.size());
+        assertFalse(index.remove(1L));
+    }
+
+    @Test
+    void equalAveragesRankByReviewCountThenId() {
+        index.update(summary(5L, 2, 16.0));
+        index.update(summary(3L, 2, 16.0));
+        index.update(summary(4L, 5, 40.0));
+
+        assertEquals(List.of(4L, 3L, 5L), index.top(3, 1).stream().map(TopRatedMovie::getMovieInfoId).toList());
+    }
+
+    private static ReviewSummary summary(Long movieInfoId, long ratingCount, double sum) {
+        return ReviewSummary.builder().movieInfoId(movieInfoId).count(ratingCount).ratingCount(ratingCount).sum(sum).build();
+    }
+}
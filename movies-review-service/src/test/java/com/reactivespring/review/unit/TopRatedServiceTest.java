@@ -0,0 +1,86 @@
+package com.reactivespring.review.unit;
+
+import com.reactivespring.review.domain.ReviewSummary;
+import com.reactivespring.review.domain.TopRatedMovie;
+import com.reactivespring.review.repository.ReviewSummaryRepository;
+import com.reactivespring.review.service.TopRatedService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class TopRatedServiceTest {
+
+    private final TopRatedService topRatedService = new TopRatedService(mock(ReviewSummaryRepository.class),
+            Duration.ofMillis(10), new SimpleMeterRegistry());
+
+    @Test
+    void streamPushesRankingChangesOnly() {
+        topRatedService.update(summary(1L, 8.0));
+
+        StepVerifier.create(topRatedService.topStream(1, 1).map(ranking -> ranking.getMovies().stream()
+                        .map(TopRatedMovie::getMovieInfoId).toList()))
+                .expectNext(List.of(1L))
+                .then(() -> topRatedService.update(summary(2L, 7.0)))
+                .then(() -> topRatedService.update(summary(2L, 9.0)))
+                .expectNext(List.of(2L))
+                .then(() -> topRatedService.remove(2L))
+                .expectNext(List.of(1L))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void subscribersShareOneRankingComputedOffTheWritersThread() throws Exception {
+        topRatedService.update(summary(1L, 8.0));
+        // the first ranking is computed asynchronously, the update must not overtake it or both rankings are [2]
+        var initialRankings = new CountDownLatch(3);
+        var first = topRatedService.topStream(1, 1)
+                .doOnNext(ranking -> initialRankings.countDown())
+                .skip(1)
+                .next()
+                .toFuture();
+        var second = topRatedService.topStream(1, 1)
+                .doOnNext(ranking -> initialRankings.countDown())
+                .skip(1)
+                .next()
+                .toFuture();
+        var rankingThread = topRatedService.topStream(1, 1)
+                .doOnNext(ranking -> initialRankings.countDown())
+                .skip(1)
+                .map(ranking -> Thread.currentThread().getName())
+                .next()
+                .toFuture();
+        assertTrue(initialRankings.await(5, SECONDS));
+
+        topRatedService.update(summary(2L, 9.0));
+
+        var ranking = first.get(5, SECONDS);
+        assertSame(ranking, second.get(5, SECONDS));
+        assertEquals(List.of(2L), ranking.getMovies().stream().map(TopRatedMovie::getMovieInfoId).toList());
+        assertNotEquals(Thread.currentThread().getName(), rankingThread.get(5, SECONDS));
+    }
+
+    @Test
+    void replaceAllResetsTheRanking() {
+        topRatedService.update(summary(1L, 8.0));
+
+        topRatedService.replaceAll(List.of(summary(2L, 6.0), summary(3L, 7.0)));
+
+        assertEquals(List.of(3L, 2L), topRatedService.top(10, 1).stream().map(TopRatedMovie::getMovieInfoId).toList());
+    }
+
+    private static ReviewSummary summary(Long movieInfoId, double rating) {
+        return ReviewSummary.builder().movieInfoId(movieInfoId).count(1).ratingCount(1).sum(rating).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.reactivespring.movies.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.movies.domain.MovieInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class MovieInfoCache {
+
+    private final boolean enabled;
+    private final Cache<String, MovieInfo> cache;
+    // bumped on every invalidation so a load that raced with it does not re-populate a stale entry
+    private final AtomicLong generation = new AtomicLong();
+
+    public MovieInfoCache(@Value("${restClient.moviesInfoCache.enabled:true}") boolean enabled,
+                          @Value("${restClient.moviesInfoCache.maximumSize:10000}") long maximumSize,
+                          @Value("${restClient.moviesInfoCache.ttl:5m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "moviesInfo");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<MovieInfo> get(String movieId, Function<String, Mono<MovieInfo>> loader) {
+        if (!enabled) {
+            return loader.apply(movieId);
+        }
+        return Mono.defer(() -> {
+            var cached = cache.getIfPresent(movieId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            var loadGeneration = generation.get();
+            return loader.apply(movieId)
+                    .doOnNext(movieInfo -> {
+                        if (generation.get() == loadGeneration) {
+                            cache.put(movieId, movieInfo);
+                        }
+                    });
+        });
+    }
+
+    public void invalidate(String movieId) {
+        generation.incrementAndGet();
+        cache.invalidate(movieId);
+    }
+
+    public void invalidateAll() {
+        log.info("Invalidating all cached movie info entries");
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+}
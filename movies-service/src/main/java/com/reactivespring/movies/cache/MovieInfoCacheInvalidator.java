@@ -0,0 +1,39 @@
+package com.reactivespring.movies.cache;
+
+import com.reactivespring.movies.service.MoviesInfoStreamService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MovieInfoCacheInvalidator {
+
+    private final MovieInfoCache movieInfoCache;
+    private final MoviesInfoStreamService moviesInfoStreamService;
+    private Disposable subscription;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        if (!movieInfoCache.isEnabled()) {
+            return;
+        }
+        log.info("Subscribing to the movie info stream for cache invalidation");
+        // reconnects resume after the last event seen, the cache only starts over when events may have been missed
+        moviesInfoStreamService.addResetListener(movieInfoCache::invalidateAll);
+        subscription = moviesInfoStreamService.retrieveMoviesStream()
+                .subscribe(movieInfo -> movieInfoCache.invalidate(movieInfo.getMovieInfoId()));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+}
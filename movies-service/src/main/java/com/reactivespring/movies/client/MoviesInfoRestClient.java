@@ -1,30 +1,98 @@
 package com.reactivespring.movies.client;
 
+import com.reactivespring.movies.cache.MovieInfoCache;
+import com.reactivespring.movies.config.RetryProperties;
+import com.reactivespring.movies.config.WebClientConfig;
 import com.reactivespring.movies.domain.MovieInfo;
 import com.reactivespring.movies.exception.MoviesInfoClientException;
 import com.reactivespring.movies.exception.MoviesInfoServerException;
+import com.reactivespring.movies.util.NdjsonLineFramer;
+import com.reactivespring.movies.util.RequestHedger;
 import com.reactivespring.movies.util.RetryUtil;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Component
 @Slf4j
 public class MoviesInfoRestClient {
 
+    public static final String RESET_EVENT = "reset";
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+    private static final ParameterizedTypeReference<ServerSentEvent<MovieInfo>> MOVIE_INFO_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
     private final WebClient webClient;
     private final String movieInfoUrl;
+    private final MovieInfoCache movieInfoCache;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Retry retrySpec;
+    private final Retry streamRetrySpec;
+    private final RequestHedger requestHedger;
 
-    public MoviesInfoRestClient(WebClient webClient, @Value("${restClient.moviesInfoUrl}") String movieInfoUrl) {
+    public MoviesInfoRestClient(@Qualifier("moviesInfoWebClient") WebClient webClient, @Value("${restClient.moviesInfoUrl}") String movieInfoUrl,
+                                MovieInfoCache movieInfoCache,
+                                CircuitBreakerRegistry circuitBreakerRegistry,
+                                BulkheadRegistry bulkheadRegistry,
+                                RetryProperties retryProperties,
+                                MeterRegistry meterRegistry,
+                                @Value("${restClient.moviesInfoHedging.enabled:false}") boolean hedgingEnabled,
+                                @Value("${restClient.moviesInfoHedging.percentile:0.95}") double hedgingPercentile,
+                                @Value("${restClient.moviesInfoHedging.minDelay:20ms}") Duration hedgingMinDelay,
+                                @Value("${restClient.moviesInfoHedging.maxDelay:1s}") Duration hedgingMaxDelay,
+                                @Value("${restClient.moviesInfoHedging.maxHedgeRatio:0.05}") double maxHedgeRatio) {
         this.webClient = webClient;
         this.movieInfoUrl = movieInfoUrl;
+        this.movieInfoCache = movieInfoCache;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("moviesInfo");
+        this.bulkhead = bulkheadRegistry.bulkhead("moviesInfo");
+        this.retrySpec = RetryUtil.retrySpec(WebClientConfig.MOVIES_INFO_CLIENT,
+                retryProperties.forClient(WebClientConfig.MOVIES_INFO_CLIENT), meterRegistry);
+        // a dropped stream connection is retried too, only a rejected request (4xx) ends the stream
+        this.streamRetrySpec = RetryUtil.streamRetrySpec(retryProperties.forClient(WebClientConfig.MOVIES_INFO_CLIENT),
+                throwable -> !(throwable instanceof MoviesInfoClientException));
+        this.requestHedger = new RequestHedger("moviesInfo", hedgingEnabled, hedgingPercentile,
+                hedgingMinDelay, hedgingMaxDelay, maxHedgeRatio, meterRegistry);
     }
 
     public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+        return movieInfoCache.get(movieId, this::fetchMovieInfo);
+    }
+
+    private Mono<MovieInfo> fetchMovieInfo(String movieId) {
+        return requestHedger.hedge(() -> requestMovieInfo(movieId))
+                // each attempt passes the bulkhead and is recorded by the breaker, an open breaker short-circuits retries
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                //.retry(3)
+                .retryWhen(retrySpec)
+                .log();
+    }
+
+    private Mono<MovieInfo> requestMovieInfo(String movieId) {
         return webClient.get()
                 .uri(movieInfoUrl.concat("/{id}"), movieId)
                 .retrieve()
@@ -52,16 +120,51 @@ public class MoviesInfoRestClient {
                                                 new MoviesInfoServerException(String.format("Server Exception in MoviesInfoService: %s", errorBody)));
                                     });
                         })
-                .bodyToMono(MovieInfo.class)
-                //.retry(3)
-                .retryWhen(RetryUtil.retrySpec())
+                .bodyToMono(MovieInfo.class);
+    }
+
+    // every (re)connect, including the retries below, resumes after the last event id seen. A connection without a
+    // position starts with a reset event once it is accepted, as does the server when it no longer holds the events
+    // after ours; a failed connection emits nothing, so it does not restart the retry backoff.
+    public Flux<ServerSentEvent<MovieInfo>> retrieveMoviesEvents() {
+        var lastEventId = new AtomicReference<String>();
+        return Flux.defer(() -> {
+                    var resumeFrom = lastEventId.get();
+                    return streamRequest("/stream/events", MediaType.TEXT_EVENT_STREAM, resumeFrom)
+                            .toEntityFlux(MOVIE_INFO_EVENT)
+                            .flatMapMany(response -> resumeFrom == null
+                                    ? response.getBody().startWith(ServerSentEvent.<MovieInfo>builder().event(RESET_EVENT).build())
+                                    : response.getBody());
+                })
+                .doOnNext(event -> {
+                    if (event.id() != null) {
+                        lastEventId.set(event.id());
+                    }
+                })
+                .retryWhen(streamRetrySpec)
                 .log();
     }
 
-    public Flux<MovieInfo> retrieveMoviesStream() {
-        var url = movieInfoUrl.concat("/stream");
+    // raw NDJSON lines as received, one buffer per line, for callers that forward the stream without decoding
+    // it. Each connection is framed on its own, so a line cut off when a connection drops is discarded.
+    public Flux<DataBuffer> retrieveMoviesStreamRaw() {
+        return NdjsonLineFramer.frame(streamRequest("/stream", MediaType.APPLICATION_NDJSON, null)
+                        .bodyToFlux(DataBuffer.class))
+                .retryWhen(streamRetrySpec);
+    }
+
+    private WebClient.ResponseSpec streamRequest(String path, MediaType mediaType, String lastEventId) {
+        var url = movieInfoUrl.concat(path);
         return webClient.get()
                 .uri(url)
+                .accept(mediaType)
+                .headers(headers -> {
+                    if (lastEventId != null) {
+                        headers.set(LAST_EVENT_ID_HEADER, lastEventId);
+                    }
+                })
+                // the stream stays open while idle, so the per-read response timeout does not apply to it
+                .httpRequest(httpRequest -> httpRequest.<HttpClientRequest>getNativeRequest().responseTimeout(null))
                 .retrieve()
                 .onStatus(httpStatus -> httpStatus.is4xxClientError(), (clientResponse -> {
                     log.info("Status code : {}", clientResponse.statusCode().value());
@@ -72,9 +175,6 @@ public class MoviesInfoRestClient {
                     log.info("Status code : {}", clientResponse.statusCode().value());
                     return clientResponse.bodyToMono(String.class)
                             .flatMap(response -> Mono.error(new MoviesInfoServerException(response)));
-                }))
-                .bodyToFlux(MovieInfo.class)
-                .retryWhen(RetryUtil.retrySpec())
-                .log();
+                }));
     }
 }
@@ -1,34 +1,151 @@
 package com.reactivespring.movies.client;
 
+import com.reactivespring.movies.config.RetryProperties;
+import com.reactivespring.movies.config.WebClientConfig;
 import com.reactivespring.movies.domain.Review;
+import com.reactivespring.movies.domain.ReviewsQuery;
 import com.reactivespring.movies.exception.ReviewsClientException;
 import com.reactivespring.movies.exception.ReviewsServerException;
+import com.reactivespring.movies.util.BatchLoader;
 import com.reactivespring.movies.util.RetryUtil;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Component
 @Slf4j
 public class ReviewsRestClient {
     private final WebClient webClient;
     private final String reviewsUrl;
+    private final BatchLoader<Long, Review> reviewsBatchLoader;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker streamCircuitBreaker;
+    private final Bulkhead streamBulkhead;
+    private final Retry retrySpec;
 
-    public ReviewsRestClient(WebClient webClient, @Value("${restClient.reviewsInfoUrl}") String reviewsUrl) {
+    public ReviewsRestClient(@Qualifier("reviewsWebClient") WebClient webClient, @Value("${restClient.reviewsInfoUrl}") String reviewsUrl,
+                             @Value("${restClient.reviewsBatch.enabled:true}") boolean batchEnabled,
+                             @Value("${restClient.reviewsBatch.maxSize:50}") int batchMaxSize,
+                             @Value("${restClient.reviewsBatch.window:2ms}") Duration batchWindow,
+                             MeterRegistry meterRegistry,
+                             CircuitBreakerRegistry circuitBreakerRegistry,
+                             BulkheadRegistry bulkheadRegistry,
+                             RetryProperties retryProperties) {
         this.webClient = webClient;
         this.reviewsUrl = reviewsUrl;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("reviews");
+        this.bulkhead = bulkheadRegistry.bulkhead("reviews");
+        this.streamCircuitBreaker = circuitBreakerRegistry.circuitBreaker("reviewsStream");
+        this.streamBulkhead = bulkheadRegistry.bulkhead("reviewsStream");
+        this.retrySpec = RetryUtil.retrySpec(WebClientConfig.REVIEWS_CLIENT,
+                retryProperties.forClient(WebClientConfig.REVIEWS_CLIENT), meterRegistry);
+        this.reviewsBatchLoader = batchEnabled
+                ? new BatchLoader<>("reviews", this::retrieveReviewsByMovieInfoIds, Review::getMovieInfoId,
+                batchMaxSize, batchWindow, meterRegistry)
+                : null;
     }
 
     //movieInfoId
     public Flux<Review> retrieveReviews(String movieInfoId) {
+        // review movieInfoIds are numeric, anything else keeps the single lookup and its error semantics
+        var batchKey = reviewsBatchLoader != null ? parseMovieInfoId(movieInfoId) : null;
+        if (batchKey != null) {
+            return reviewsBatchLoader.load(batchKey)
+                    .flatMapIterable(Function.identity());
+        }
+        var uriComponentBuilder = UriComponentsBuilder.fromHttpUrl(reviewsUrl).queryParam("movieInfoId", movieInfoId);
+        return retrieveReviews(uriComponentBuilder.build().toUri());
+    }
+
+    // limit and sort are applied by the reviews service, so these calls go out on their own instead of through
+    // the batch loader, which always fetches every review of a movie
+    public Flux<Review> retrieveReviews(String movieInfoId, ReviewsQuery reviewsQuery) {
+        if (reviewsQuery.isAll()) {
+            return retrieveReviews(movieInfoId);
+        }
+        var uriComponentBuilder = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
+                .queryParam("movieInfoId", movieInfoId)
+                .queryParamIfPresent("limit", Optional.ofNullable(reviewsQuery.getLimit()))
+                .queryParamIfPresent("sort", Optional.ofNullable(reviewsQuery.getSort()));
+        return retrieveReviews(uriComponentBuilder.build().toUri());
+    }
+
+    // streamed as NDJSON and never batched, so reviews reach the caller as they are read; not retried because
+    // a resubscription would replay reviews that were already emitted. A stream holds its permit and is timed
+    // for as long as it is read, so it has its own breaker and bulkhead: long streams must not count as slow
+    // calls or take the permits of the single-movie lookups.
+    public Flux<Review> streamReviews(String movieInfoId) {
         var uriComponentBuilder = UriComponentsBuilder.fromHttpUrl(reviewsUrl).queryParam("movieInfoId", movieInfoId);
+        return exchange(uriComponentBuilder.build().toUri(), MediaType.APPLICATION_NDJSON)
+                .transformDeferred(BulkheadOperator.of(streamBulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(streamCircuitBreaker));
+    }
+
+    public Flux<Review> retrieveReviewsByIds(List<String> movieInfoIds) {
+        var uriComponentBuilder = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
+                .queryParam("movieInfoIds", String.join(",", movieInfoIds));
+        return retrieveReviews(uriComponentBuilder.build().toUri());
+    }
+
+    // keyed by the parsed id on both sides, so "01" gets the reviews of movie 1
+    private Flux<Review> retrieveReviewsByMovieInfoIds(List<Long> movieInfoIds) {
+        return retrieveReviewsByIds(movieInfoIds.stream().map(String::valueOf).toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reviewsBatchLoader != null) {
+            reviewsBatchLoader.dispose();
+        }
+    }
+
+    private static Long parseMovieInfoId(String movieInfoId) {
+        if (movieInfoId.isEmpty() || !movieInfoId.chars().allMatch(Character::isDigit)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(movieInfoId);
+        } catch (NumberFormatException ex) {
+            // out of the Long range
+            return null;
+        }
+    }
+
+    private Flux<Review> retrieveReviews(URI uri) {
+        return exchange(uri, MediaType.APPLICATION_JSON)
+                .transformDeferred(BulkheadOperator.of(bulkhead))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .retryWhen(retrySpec)
+                .log();
+    }
+
+    private Flux<Review> exchange(URI uri, MediaType mediaType) {
         return webClient.get()
-                .uri(uriComponentBuilder.build().toUri())
+                .uri(uri)
+                .accept(mediaType)
                 .retrieve()
                 .onStatus(httpStatus -> httpStatus.is4xxClientError(),
                         clientResponse -> {
@@ -53,8 +170,6 @@ public class ReviewsRestClient {
                                                 new ReviewsServerException(String.format("Server Exception in ReviewsService: %s", errorBody)));
                                     });
                         })
-                .bodyToFlux(Review.class)
-                .retryWhen(RetryUtil.retrySpec())
-                .log();
+                .bodyToFlux(Review.class);
     }
 }
@@ -0,0 +1,37 @@
+package com.reactivespring.movies.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rest-client.http")
+public class HttpClientProperties {
+
+    private Map<String, Client> clients = new HashMap<>();
+
+    public Client forClient(String name) {
+        return clients.getOrDefault(name, new Client());
+    }
+
+    @Getter
+    @Setter
+    public static class Client {
+        private int maxConnections = 100;
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration responseTimeout = Duration.ofSeconds(10);
+        private boolean keepAlive = true;
+        private boolean compression = false;
+        private boolean http2 = false;
+    }
+}
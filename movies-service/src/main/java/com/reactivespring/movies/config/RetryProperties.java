@@ -0,0 +1,42 @@
+package com.reactivespring.movies.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rest-client.retry")
+public class RetryProperties {
+
+    private Map<String, Policy> clients = new HashMap<>();
+
+    public Policy forClient(String name) {
+        return clients.getOrDefault(name, new Policy());
+    }
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private int maxAttempts = 3;
+        private Duration minBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(2);
+        private double jitter = 0.5;
+        private Duration maxTotalTime = Duration.ofSeconds(5);
+        private Budget budget = new Budget();
+    }
+
+    @Getter
+    @Setter
+    public static class Budget {
+        // share of base requests that may be retried, e.g. 0.2 allows one retry for every five requests
+        private double ratio = 0.2;
+        // floor so that low traffic services can still retry
+        private double minRetriesPerSecond = 5;
+        private double maxTokens = 20;
+    }
+}
@@ -1,13 +1,76 @@
 package com.reactivespring.movies.config;
 
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
+@EnableConfigurationProperties({HttpClientProperties.class, RetryProperties.class})
+@Slf4j
 public class WebClientConfig {
+
+    public static final String MOVIES_INFO_CLIENT = "movies-info";
+    public static final String REVIEWS_CLIENT = "reviews";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider moviesInfoConnectionProvider(HttpClientProperties httpClientProperties) {
+        return connectionProvider(MOVIES_INFO_CLIENT, httpClientProperties.forClient(MOVIES_INFO_CLIENT));
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider reviewsConnectionProvider(HttpClientProperties httpClientProperties) {
+        return connectionProvider(REVIEWS_CLIENT, httpClientProperties.forClient(REVIEWS_CLIENT));
+    }
+
     @Bean
-    public WebClient webClient() {
-        return WebClient.builder().build();
+    public WebClient moviesInfoWebClient(WebClient.Builder webClientBuilder,
+                                         @Qualifier("moviesInfoConnectionProvider") ConnectionProvider connectionProvider,
+                                         HttpClientProperties httpClientProperties) {
+        return webClient(webClientBuilder, connectionProvider, httpClientProperties.forClient(MOVIES_INFO_CLIENT));
+    }
+
+    @Bean
+    public WebClient reviewsWebClient(WebClient.Builder webClientBuilder,
+                                      @Qualifier("reviewsConnectionProvider") ConnectionProvider connectionProvider,
+                                      HttpClientProperties httpClientProperties) {
+        return webClient(webClientBuilder, connectionProvider, httpClientProperties.forClient(REVIEWS_CLIENT));
+    }
+
+    private ConnectionProvider connectionProvider(String name, HttpClientProperties.Client client) {
+        log.info("Connection pool {}: maxConnections={}, pendingAcquireMaxCount={}, maxIdleTime={}",
+                name, client.getMaxConnections(), client.getPendingAcquireMaxCount(), client.getMaxIdleTime());
+        // metrics(true) publishes reactor.netty.connection.provider.* gauges (active, idle, pending) per pool
+        return ConnectionProvider.builder(name)
+                .maxConnections(client.getMaxConnections())
+                .pendingAcquireMaxCount(client.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(client.getPendingAcquireTimeout())
+                .maxIdleTime(client.getMaxIdleTime())
+                .maxLifeTime(client.getMaxLifeTime())
+                .evictInBackground(client.getEvictInBackground())
+                .metrics(true)
+                .build();
+    }
+
+    private WebClient webClient(WebClient.Builder webClientBuilder, ConnectionProvider connectionProvider,
+                                HttpClientProperties.Client client) {
+        var httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, client.isKeepAlive())
+                .responseTimeout(client.getResponseTimeout())
+                .compress(client.isCompression());
+        if (client.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
@@ -1,42 +1,70 @@
 package com.reactivespring.movies.controller;
 
-import com.reactivespring.movies.client.MoviesInfoRestClient;
-import com.reactivespring.movies.client.ReviewsRestClient;
 import com.reactivespring.movies.domain.Movie;
 import com.reactivespring.movies.domain.MovieInfo;
+import com.reactivespring.movies.domain.MovieResult;
+import com.reactivespring.movies.domain.MovieStreamElement;
+import com.reactivespring.movies.domain.ReviewsQuery;
+import com.reactivespring.movies.service.MoviesInfoStreamService;
+import com.reactivespring.movies.service.MoviesService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1/movies")
 @Slf4j
 @RequiredArgsConstructor
 public class MoviesController {
 
-    private final MoviesInfoRestClient moviesInfoRestClient;
-    private final ReviewsRestClient reviewsRestClient;
+    private final MoviesService moviesService;
+    private final MoviesInfoStreamService moviesInfoStreamService;
 
     @GetMapping("/{id}")
-    public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId) {
+    public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId,
+                                         @RequestParam(value = "reviewsLimit", required = false) String reviewsLimit,
+                                         @RequestParam(value = "reviewsSort", required = false) String reviewsSort) {
         log.info("retrieveMovieById: {}", movieId);
-        return moviesInfoRestClient.retrieveMovieInfo(movieId)
-                .flatMap(movieInfo -> {
-                    var reviewsListMono = this.reviewsRestClient.retrieveReviews(movieId).collectList();
-                    return reviewsListMono.map(reviews -> new Movie(movieInfo, reviews));
-                }).log();
+        return Mono.fromCallable(() -> ReviewsQuery.of(reviewsLimit, reviewsSort))
+                .flatMap(reviewsQuery -> moviesService.retrieveMovieById(movieId, reviewsQuery))
+                .log();
+    }
+
+    @GetMapping(value = "/{id}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieStreamElement> streamMovieById(@PathVariable("id") String movieId) {
+        log.info("streamMovieById: {}", movieId);
+        return moviesService.streamMovieById(movieId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieResult> retrieveMoviesByIds(@RequestParam("ids") List<String> movieIds) {
+        log.info("retrieveMoviesByIds: {}", movieIds);
+        return moviesService.retrieveMoviesByIds(movieIds).log();
     }
 
     @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
     public Flux<MovieInfo> retrieveMovieInfos() {
         log.info("retrieveMovieInfos");
-        return this.moviesInfoRestClient.retrieveMoviesStream();
+        return this.moviesInfoStreamService.retrieveMoviesStream();
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE, params = "passthrough=true")
+    public Mono<Void> retrieveMovieInfosPassthrough(ServerHttpResponse response) {
+        log.info("retrieveMovieInfosPassthrough");
+        response.getHeaders().setContentType(MediaType.APPLICATION_NDJSON);
+        return response.writeAndFlushWith(this.moviesInfoStreamService
+                .retrieveMoviesStreamPassthrough(response.bufferFactory())
+                .map(Mono::just));
     }
 
 }
@@ -0,0 +1,17 @@
+package com.reactivespring.movies.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieResult {
+    private String movieId;
+    private Movie movie;
+    private Integer status;
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.reactivespring.movies.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieStreamElement {
+    private MovieInfo movieInfo;
+    private Review review;
+
+    public static MovieStreamElement ofMovieInfo(MovieInfo movieInfo) {
+        return new MovieStreamElement(movieInfo, null);
+    }
+
+    public static MovieStreamElement ofReview(Review review) {
+        return new MovieStreamElement(null, review);
+    }
+}
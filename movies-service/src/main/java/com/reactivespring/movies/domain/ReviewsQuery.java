@@ -0,0 +1,55 @@
+package com.reactivespring.movies.domain;
+
+import com.reactivespring.movies.exception.MoviesRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * Limit and sort pushed down to the reviews service; both null means every review of the movie.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ReviewsQuery {
+
+    public static final ReviewsQuery ALL = new ReviewsQuery(null, null);
+    private static final int MAX_LIMIT = 500;
+    private static final Set<String> SORTS = Set.of("newest", "rating");
+
+    private final Integer limit;
+    private final String sort;
+
+    public static ReviewsQuery of(String limit, String sort) {
+        if (limit == null && sort == null) {
+            return ALL;
+        }
+        return new ReviewsQuery(limit == null ? null : parseLimit(limit), sort == null ? null : parseSort(sort));
+    }
+
+    public boolean isAll() {
+        return limit == null && sort == null;
+    }
+
+    private static int parseLimit(String limit) {
+        try {
+            var value = Integer.parseInt(limit);
+            if (value >= 1 && value <= MAX_LIMIT) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            // reported below
+        }
+        throw new MoviesRequestException(String.format("reviewsLimit must be between 1 and %d, got %s", MAX_LIMIT, limit));
+    }
+
+    private static String parseSort(String sort) {
+        var value = sort.toLowerCase();
+        if (!SORTS.contains(value)) {
+            throw new MoviesRequestException(String.format("reviewsSort must be one of %s, got %s", SORTS, sort));
+        }
+        return value;
+    }
+}
@@ -1,6 +1,7 @@
 package com.reactivespring.movies.globalErrorHandler;
 
 import com.reactivespring.movies.exception.MoviesInfoClientException;
+import com.reactivespring.movies.exception.MoviesRequestException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,12 @@ public class GlobalErrorHandler {
         return ResponseEntity.status(ex.getStatusCode()).body(ex.getMessage());
     }
 
+    @ExceptionHandler(MoviesRequestException.class)
+    public ResponseEntity<String> handleMoviesRequestException(MoviesRequestException ex) {
+        log.error("Exception caught in handleMoviesRequestException: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         log.error("Exception caught in handleClientException: {}", ex.getMessage());
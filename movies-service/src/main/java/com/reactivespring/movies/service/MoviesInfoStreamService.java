@@ -0,0 +1,118 @@
+package com.reactivespring.movies.service;
+
+import com.reactivespring.movies.client.MoviesInfoRestClient;
+import com.reactivespring.movies.domain.MovieInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds one upstream subscription to the movie info stream per instance and fans it out to local
+ * subscribers. The upstream reconnects with backoff on error or completion without disturbing local
+ * subscribers, resuming after the last event it received, and every local subscriber gets its own bounded
+ * buffer so a slow one cannot stall the rest. Reset listeners run whenever events may have been missed.
+ */
+@Service
+@Slf4j
+public class MoviesInfoStreamService {
+
+    private final Flux<MovieInfo> sharedStream;
+    private final Flux<byte[]> sharedRawStream;
+    private final int subscriberBufferSize;
+    private final BufferOverflowStrategy overflowStrategy;
+    private final List<Runnable> resetListeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter droppedCounter;
+    private final Counter connectsCounter;
+    private final Counter resetsCounter;
+
+    public MoviesInfoStreamService(MoviesInfoRestClient moviesInfoRestClient,
+                                   @Value("${movies.stream.subscriberBufferSize:256}") int subscriberBufferSize,
+                                   @Value("${movies.stream.overflowStrategy:DROP_OLDEST}") BufferOverflowStrategy overflowStrategy,
+                                   @Value("${movies.stream.reconnectBackoff:1s}") Duration reconnectBackoff,
+                                   @Value("${movies.stream.gracePeriod:5s}") Duration gracePeriod,
+                                   MeterRegistry meterRegistry) {
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.overflowStrategy = overflowStrategy;
+        this.droppedCounter = Counter.builder("movies.stream.dropped")
+                .description("Movie info events dropped for slow local subscribers")
+                .register(meterRegistry);
+        this.connectsCounter = Counter.builder("movies.stream.upstream.connects")
+                .description("Upstream movie info stream (re)connections")
+                .register(meterRegistry);
+        this.resetsCounter = Counter.builder("movies.stream.upstream.resets")
+                .description("Upstream movie info stream connections that could not resume after the last event")
+                .register(meterRegistry);
+        meterRegistry.gauge("movies.stream.subscribers", subscribers);
+        this.sharedStream = share(moviesInfoRestClient.retrieveMoviesEvents()
+                .doOnSubscribe(subscription -> onConnect())
+                .doOnNext(event -> {
+                    if (MoviesInfoRestClient.RESET_EVENT.equals(event.event())) {
+                        onReset();
+                    }
+                })
+                .filter(event -> event.data() != null)
+                .map(ServerSentEvent::data), reconnectBackoff, gracePeriod);
+        // lines are copied out of the network buffers once per instance, never decoded, and wrapped per subscriber
+        this.sharedRawStream = share(moviesInfoRestClient.retrieveMoviesStreamRaw()
+                .map(line -> {
+                    var bytes = new byte[line.readableByteCount()];
+                    line.read(bytes);
+                    DataBufferUtils.release(line);
+                    return bytes;
+                }), reconnectBackoff, gracePeriod);
+    }
+
+    private static <T> Flux<T> share(Flux<T> upstream, Duration reconnectBackoff, Duration gracePeriod) {
+        return upstream
+                .doOnError(ex -> log.warn("Upstream movie info stream failed, reconnecting: {}", ex.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, reconnectBackoff).maxBackoff(Duration.ofSeconds(30)).transientErrors(true))
+                .repeatWhen(completions -> completions.delayElements(reconnectBackoff))
+                .publish()
+                .refCount(1, gracePeriod);
+    }
+
+    public Flux<MovieInfo> retrieveMoviesStream() {
+        return sharedStream
+                .onBackpressureBuffer(subscriberBufferSize, dropped -> droppedCounter.increment(), overflowStrategy)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signalType -> subscribers.decrementAndGet());
+    }
+
+    public Flux<DataBuffer> retrieveMoviesStreamPassthrough(DataBufferFactory bufferFactory) {
+        return sharedRawStream
+                .onBackpressureBuffer(subscriberBufferSize, dropped -> droppedCounter.increment(), overflowStrategy)
+                .map(bufferFactory::wrap)
+                .doOnSubscribe(subscription -> subscribers.incrementAndGet())
+                .doFinally(signalType -> subscribers.decrementAndGet());
+    }
+
+    public void addResetListener(Runnable listener) {
+        resetListeners.add(listener);
+    }
+
+    private void onConnect() {
+        log.info("Connecting to the upstream movie info stream");
+        connectsCounter.increment();
+    }
+
+    private void onReset() {
+        log.info("Movie info stream reset, events may have been missed");
+        resetsCounter.increment();
+        resetListeners.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,147 @@
+package com.reactivespring.movies.service;
+
+import com.reactivespring.movies.client.MoviesInfoRestClient;
+import com.reactivespring.movies.client.ReviewsRestClient;
+import com.reactivespring.movies.domain.Movie;
+import com.reactivespring.movies.domain.MovieResult;
+import com.reactivespring.movies.domain.MovieStreamElement;
+import com.reactivespring.movies.domain.Review;
+import com.reactivespring.movies.domain.ReviewsQuery;
+import com.reactivespring.movies.exception.MoviesInfoClientException;
+import com.reactivespring.movies.exception.MoviesRequestException;
+import com.reactivespring.movies.util.RequestCoalescer;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@Service
+@Slf4j
+public class MoviesService {
+
+    private final MoviesInfoRestClient moviesInfoRestClient;
+    private final ReviewsRestClient reviewsRestClient;
+    private final RequestCoalescer<String, Movie> movieCoalescer;
+    private final FetchMode fetchMode;
+    private final int batchConcurrency;
+    private final int batchMaxIds;
+    private final boolean degradedReviewsEnabled;
+    private final Counter degradedReviewsCounter;
+
+    public MoviesService(MoviesInfoRestClient moviesInfoRestClient,
+                         ReviewsRestClient reviewsRestClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${movies.coalescing.enabled:true}") boolean coalescingEnabled,
+                         @Value("${movies.aggregation.fetchMode:CONCURRENT}") FetchMode fetchMode,
+                         @Value("${movies.batch.concurrency:8}") int batchConcurrency,
+                         @Value("${movies.batch.maxIds:50}") int batchMaxIds,
+                         @Value("${movies.degraded.reviews.enabled:true}") boolean degradedReviewsEnabled) {
+        this.moviesInfoRestClient = moviesInfoRestClient;
+        this.reviewsRestClient = reviewsRestClient;
+        this.movieCoalescer = new RequestCoalescer<>("movie", coalescingEnabled, meterRegistry);
+        this.fetchMode = fetchMode;
+        this.batchConcurrency = batchConcurrency;
+        this.batchMaxIds = batchMaxIds;
+        this.degradedReviewsEnabled = degradedReviewsEnabled;
+        this.degradedReviewsCounter = Counter.builder("movies.reviews.degraded")
+                .description("Movies served without (or with partial) reviews because the reviews service was shed")
+                .register(meterRegistry);
+        log.info("Movie aggregation fetch mode: {}", fetchMode);
+    }
+
+    public Mono<Movie> retrieveMovieById(String movieId) {
+        return retrieveMovieById(movieId, ReviewsQuery.ALL);
+    }
+
+    public Mono<Movie> retrieveMovieById(String movieId, ReviewsQuery reviewsQuery) {
+        log.info("retrieveMovieById: {}, reviews: {}", movieId, reviewsQuery);
+        var key = reviewsQuery.isAll()
+                ? movieId
+                : String.join("|", movieId, String.valueOf(reviewsQuery.getLimit()), String.valueOf(reviewsQuery.getSort()));
+        return movieCoalescer.coalesce(key, ignored -> fetchMovie(movieId, reviewsQuery));
+    }
+
+    // the movie info goes out first and reviews follow one by one under downstream demand, so memory stays
+    // bounded however many reviews a movie has
+    public Flux<MovieStreamElement> streamMovieById(String movieId) {
+        log.info("streamMovieById: {}", movieId);
+        return moviesInfoRestClient.retrieveMovieInfo(movieId)
+                .flatMapMany(movieInfo -> Flux.concat(
+                        Mono.just(MovieStreamElement.ofMovieInfo(movieInfo)),
+                        degradeReviews(movieId, reviewsRestClient.streamReviews(movieId))
+                                .map(MovieStreamElement::ofReview)));
+    }
+
+    public Flux<MovieResult> retrieveMoviesByIds(List<String> movieIds) {
+        var distinctIds = new LinkedHashSet<>(movieIds);
+        log.info("retrieveMoviesByIds: {}", distinctIds);
+        if (distinctIds.isEmpty() || distinctIds.size() > batchMaxIds) {
+            return Flux.error(new MoviesRequestException(
+                    String.format("Between 1 and %d movie IDs must be requested, got %d", batchMaxIds, distinctIds.size())));
+        }
+        // concurrency bounds the number of in-flight movie info / reviews call pairs for this batch
+        return Flux.fromIterable(distinctIds)
+                .flatMap(movieId -> retrieveMovieById(movieId)
+                                .map(movie -> new MovieResult(movieId, movie, HttpStatus.OK.value(), null))
+                                .onErrorResume(ex -> Mono.just(toFailedResult(movieId, ex))),
+                        batchConcurrency);
+    }
+
+    private MovieResult toFailedResult(String movieId, Throwable ex) {
+        log.error("Failed to retrieve movie {} in batch: {}", movieId, ex.getMessage());
+        var status = ex instanceof MoviesInfoClientException clientException
+                ? clientException.getStatusCode()
+                : HttpStatus.INTERNAL_SERVER_ERROR.value();
+        return new MovieResult(movieId, null, status, ex.getMessage());
+    }
+
+    private Mono<Movie> fetchMovie(String movieId, ReviewsQuery reviewsQuery) {
+        if (fetchMode == FetchMode.CONCURRENT) {
+            // a failed movie info lookup (e.g. 404) errors the zip straight away and cancels the reviews call,
+            // while a reviews failure is held back until the movie info is known so the info error wins
+            return Mono.zip(moviesInfoRestClient.retrieveMovieInfo(movieId),
+                            retrieveReviews(movieId, reviewsQuery).collectList().materialize())
+                    .flatMap(tuple -> {
+                        var reviewsSignal = tuple.getT2();
+                        if (reviewsSignal.hasError()) {
+                            return Mono.error(reviewsSignal.getThrowable());
+                        }
+                        return Mono.just(new Movie(tuple.getT1(), reviewsSignal.get()));
+                    });
+        }
+        return moviesInfoRestClient.retrieveMovieInfo(movieId)
+                .flatMap(movieInfo -> {
+                    var reviewsListMono = retrieveReviews(movieId, reviewsQuery).collectList();
+                    return reviewsListMono.map(reviews -> new Movie(movieInfo, reviews));
+                });
+    }
+
+    private Flux<Review> retrieveReviews(String movieId, ReviewsQuery reviewsQuery) {
+        return degradeReviews(movieId, reviewsRestClient.retrieveReviews(movieId, reviewsQuery));
+    }
+
+    private Flux<Review> degradeReviews(String movieId, Flux<Review> reviews) {
+        return reviews
+                .onErrorResume(ex -> degradedReviewsEnabled
+                                && (ex instanceof CallNotPermittedException || ex instanceof BulkheadFullException),
+                        ex -> {
+                            log.warn("Serving movie {} without reviews: {}", movieId, ex.getMessage());
+                            degradedReviewsCounter.increment();
+                            return Flux.empty();
+                        });
+    }
+
+    public enum FetchMode {
+        SEQUENTIAL,
+        CONCURRENT
+    }
+}
@@ -0,0 +1,79 @@
+package com.reactivespring.movies.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Collects single-key lookups issued by concurrent callers for up to {@code window} or {@code maxBatchSize}
+ * lookups, whichever comes first, and resolves them with one call to {@code batchFunction}. Each caller
+ * gets back only the values whose key matches its own.
+ */
+@Slf4j
+public class BatchLoader<K, V> {
+
+    private final Function<List<K>, Flux<V>> batchFunction;
+    private final Function<V, K> keyFunction;
+    private final Counter batchCounter;
+    private final DistributionSummary batchSize;
+    private final Disposable subscription;
+    // FluxSink serializes next() calls coming from concurrent request threads
+    private volatile FluxSink<PendingLoad<K, V>> pendingLoads;
+
+    public BatchLoader(String name, Function<List<K>, Flux<V>> batchFunction, Function<V, K> keyFunction,
+                       int maxBatchSize, Duration window, MeterRegistry meterRegistry) {
+        this.batchFunction = batchFunction;
+        this.keyFunction = keyFunction;
+        this.batchCounter = Counter.builder("movies.batch.loader.batches")
+                .description("Batched downstream calls issued")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("movies.batch.loader.size")
+                .description("Distinct keys resolved per batched downstream call")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.subscription = Flux.<PendingLoad<K, V>>create(sink -> this.pendingLoads = sink)
+                .bufferTimeout(maxBatchSize, window, true)
+                .flatMap(this::dispatch)
+                .subscribe();
+    }
+
+    public Mono<List<V>> load(K key) {
+        return Mono.defer(() -> {
+            Sinks.One<List<V>> result = Sinks.one();
+            pendingLoads.next(new PendingLoad<>(key, result));
+            return result.asMono();
+        });
+    }
+
+    public void dispose() {
+        subscription.dispose();
+    }
+
+    private Mono<Void> dispatch(List<PendingLoad<K, V>> batch) {
+        var keys = batch.stream().map(PendingLoad::key).distinct().toList();
+        log.debug("Dispatching batch of {} lookups for {} distinct keys", batch.size(), keys.size());
+        batchCounter.increment();
+        batchSize.record(keys.size());
+        return Flux.defer(() -> batchFunction.apply(keys))
+                .collectMultimap(keyFunction)
+                .doOnNext(valuesByKey -> batch.forEach(pendingLoad -> pendingLoad.result()
+                        .tryEmitValue(List.copyOf(valuesByKey.getOrDefault(pendingLoad.key(), List.of())))))
+                .doOnError(ex -> batch.forEach(pendingLoad -> pendingLoad.result().tryEmitError(ex)))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    private record PendingLoad<K, V>(K key, Sinks.One<List<V>> result) {
+    }
+}
@@ -0,0 +1,80 @@
+package com.reactivespring.movies.util;
+
+import com.reactivespring.movies.config.RetryProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.util.function.Predicate;
+
+/**
+ * Exponential backoff with jitter, bounded by a maximum number of attempts, a maximum total time per call
+ * and a {@link RetryBudget} shared by every call to the same downstream.
+ */
+public class BudgetedRetry extends Retry {
+
+    private final RetryProperties.Policy policy;
+    private final Predicate<Throwable> retryable;
+    private final RetryBudget retryBudget;
+    private final Counter retriedCounter;
+    private final Counter budgetRejectedCounter;
+    private final Counter exhaustedCounter;
+
+    public BudgetedRetry(String client, RetryProperties.Policy policy, Predicate<Throwable> retryable,
+                         MeterRegistry meterRegistry) {
+        this.policy = policy;
+        this.retryable = retryable;
+        this.retryBudget = new RetryBudget(policy.getBudget().getRatio(), policy.getBudget().getMinRetriesPerSecond(),
+                policy.getBudget().getMaxTokens());
+        this.retriedCounter = Counter.builder("movies.retry.attempts")
+                .description("Retries issued")
+                .tag("client", client)
+                .register(meterRegistry);
+        this.budgetRejectedCounter = Counter.builder("movies.retry.budget.rejected")
+                .description("Retries skipped because the retry budget was empty")
+                .tag("client", client)
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("movies.retry.exhausted")
+                .description("Calls that failed after using all retry attempts")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("movies.retry.budget.tokens", retryBudget, RetryBudget::availableTokens)
+                .tag("client", client)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Publisher<?> generateCompanion(Flux<RetrySignal> retrySignals) {
+        // called once per subscription, i.e. once per base request
+        retryBudget.deposit();
+        var deadline = System.nanoTime() + policy.getMaxTotalTime().toNanos();
+        return Retry.backoff(policy.getMaxAttempts(), policy.getMinBackoff())
+                .maxBackoff(policy.getMaxBackoff())
+                .jitter(policy.getJitter())
+                .filter(throwable -> retryable.test(throwable) && System.nanoTime() < deadline)
+                // after the attempts check, so a call that used all its attempts does not spend a token
+                .doBeforeRetry(retrySignal -> {
+                    if (!acquireBudget()) {
+                        throw Exceptions.propagate(retrySignal.failure());
+                    }
+                    retriedCounter.increment();
+                })
+                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
+                    exhaustedCounter.increment();
+                    return Exceptions.propagate(retrySignal.failure());
+                })
+                .generateCompanion(retrySignals);
+    }
+
+    private boolean acquireBudget() {
+        if (retryBudget.tryAcquire()) {
+            return true;
+        }
+        budgetRejectedCounter.increment();
+        return false;
+    }
+}
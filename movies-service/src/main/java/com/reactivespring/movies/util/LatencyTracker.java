@@ -0,0 +1,47 @@
+package com.reactivespring.movies.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps the latencies of the last {@code windowSize} calls in a ring buffer and exposes a percentile of them.
+ * The percentile is recomputed every {@code windowSize / 10} samples rather than on every read.
+ */
+public class LatencyTracker {
+
+    private final AtomicLongArray samples;
+    private final AtomicLong recorded = new AtomicLong();
+    private final double percentile;
+    private final int recomputeInterval;
+    private volatile long percentileNanos;
+
+    public LatencyTracker(int windowSize, double percentile, Duration initialEstimate) {
+        this.samples = new AtomicLongArray(windowSize);
+        this.percentile = percentile;
+        this.recomputeInterval = Math.max(1, windowSize / 10);
+        this.percentileNanos = initialEstimate.toNanos();
+    }
+
+    public void record(long latencyNanos) {
+        var count = recorded.getAndIncrement();
+        samples.set((int) (count % samples.length()), latencyNanos);
+        if ((count + 1) % recomputeInterval == 0) {
+            recompute(Math.min(count + 1, samples.length()));
+        }
+    }
+
+    public Duration percentile() {
+        return Duration.ofNanos(percentileNanos);
+    }
+
+    private void recompute(long size) {
+        var snapshot = new long[(int) size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        percentileNanos = snapshot[(int) Math.min(size - 1, (long) Math.ceil(percentile * size) - 1)];
+    }
+}
@@ -0,0 +1,56 @@
+package com.reactivespring.movies.util;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-chunks a stream of buffers into one buffer per newline-terminated line without decoding it. Lines are
+ * split off the incoming buffers with {@link DataBuffer#split(int)}, which shares memory with the source, and
+ * a line spanning several buffers is joined through the buffer factory (a composite buffer for Netty). An
+ * unterminated line left when the buffers end, complete or fail, is released and not emitted: frame each
+ * connection on its own, inside any retry, so a line cut off by a dropped connection is not joined onto the
+ * first line of the next one.
+ */
+public class NdjsonLineFramer {
+
+    private static final byte NEWLINE = '\n';
+
+    public static Flux<DataBuffer> frame(Flux<DataBuffer> buffers) {
+        return Flux.defer(() -> {
+            var partialLine = new ArrayList<DataBuffer>();
+            return buffers.concatMapIterable(buffer -> splitLines(buffer, partialLine))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signalType -> release(partialLine));
+        });
+    }
+
+    private static List<DataBuffer> splitLines(DataBuffer buffer, List<DataBuffer> partialLine) {
+        var lines = new ArrayList<DataBuffer>();
+        int index;
+        while ((index = buffer.indexOf(b -> b == NEWLINE, buffer.readPosition())) != -1) {
+            var line = buffer.split(index + 1);
+            if (partialLine.isEmpty()) {
+                lines.add(line);
+            } else {
+                partialLine.add(line);
+                lines.add(line.factory().join(new ArrayList<>(partialLine)));
+                partialLine.clear();
+            }
+        }
+        if (buffer.readableByteCount() > 0) {
+            partialLine.add(buffer);
+        } else {
+            DataBufferUtils.release(buffer);
+        }
+        return lines;
+    }
+
+    private static void release(List<DataBuffer> partialLine) {
+        partialLine.forEach(DataBufferUtils::release);
+        partialLine.clear();
+    }
+}
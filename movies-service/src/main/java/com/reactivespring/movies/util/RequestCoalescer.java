@@ -0,0 +1,59 @@
+package com.reactivespring.movies.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Shares a single in-flight {@link Mono} between concurrent subscribers asking for the same key.
+ * The first caller for a key (the leader) triggers the load, every caller arriving before it
+ * terminates is merged onto the same result. Entries are dropped as soon as the load terminates,
+ * so nothing is cached beyond the lifetime of the in-flight call.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Counter leaderCounter;
+    private final Counter mergedCounter;
+
+    public RequestCoalescer(String name, boolean enabled, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.leaderCounter = Counter.builder("movies.coalescer.requests")
+                .description("Requests that triggered a downstream load")
+                .tag("name", name)
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.mergedCounter = Counter.builder("movies.coalescer.requests")
+                .description("Requests merged onto an in-flight load")
+                .tag("name", name)
+                .tag("result", "merged")
+                .register(meterRegistry);
+        Gauge.builder("movies.coalescer.in.flight", inFlight, Map::size)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public Mono<V> coalesce(K key, Function<K, Mono<V>> loader) {
+        if (!enabled) {
+            return loader.apply(key);
+        }
+        return Mono.defer(() -> {
+            var leader = new AtomicBoolean();
+            var shared = inFlight.computeIfAbsent(key, k -> {
+                leader.set(true);
+                return loader.apply(k)
+                        .doFinally(signalType -> inFlight.remove(k))
+                        .cache();
+            });
+            (leader.get() ? leaderCounter : mergedCounter).increment();
+            return shared;
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package com.reactivespring.movies.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Issues a second, identical request when the first one has not answered within the tracked latency
+ * percentile and returns whichever answers first. Hedges are capped by a token bucket so they stay a
+ * bounded share of the base traffic.
+ */
+public class RequestHedger {
+
+    private final boolean enabled;
+    private final Duration minDelay;
+    private final Duration maxDelay;
+    private final LatencyTracker latencyTracker;
+    private final RetryBudget hedgeBudget;
+    private final Counter issuedCounter;
+    private final Counter wonCounter;
+
+    public RequestHedger(String name, boolean enabled, double percentile, Duration minDelay, Duration maxDelay,
+                         double maxHedgeRatio, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+        this.latencyTracker = new LatencyTracker(1000, percentile, maxDelay);
+        this.hedgeBudget = new RetryBudget(maxHedgeRatio, 0, 10);
+        this.issuedCounter = Counter.builder("movies.hedge.issued")
+                .description("Hedged requests issued")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.wonCounter = Counter.builder("movies.hedge.won")
+                .description("Hedged requests that answered before the original request")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("movies.hedge.delay", this, hedger -> hedger.hedgeDelay().toMillis())
+                .description("Current hedge delay in milliseconds")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        return Mono.defer(() -> {
+            hedgeBudget.deposit();
+            var start = System.nanoTime();
+            var primary = request.get()
+                    .doOnNext(value -> latencyTracker.record(System.nanoTime() - start));
+            // a failed or disallowed hedge never signals, so the primary request decides the outcome
+            var hedged = Mono.delay(hedgeDelay())
+                    .filter(tick -> hedgeBudget.tryAcquire())
+                    .flatMap(tick -> {
+                        issuedCounter.increment();
+                        return request.get().doOnNext(value -> {
+                            wonCounter.increment();
+                            // the primary is cancelled and never completes, its elapsed time so far is recorded
+                            // as a lower bound, otherwise only fast primaries are sampled and the delay drifts down
+                            latencyTracker.record(System.nanoTime() - start);
+                        });
+                    })
+                    .onErrorResume(ex -> Mono.never())
+                    .switchIfEmpty(Mono.never());
+            return Mono.firstWithSignal(primary, hedged);
+        });
+    }
+
+    private Duration hedgeDelay() {
+        var delay = latencyTracker.percentile();
+        if (delay.compareTo(minDelay) < 0) {
+            return minDelay;
+        }
+        return delay.compareTo(maxDelay) > 0 ? maxDelay : delay;
+    }
+}
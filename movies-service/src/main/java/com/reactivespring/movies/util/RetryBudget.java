@@ -0,0 +1,58 @@
+package com.reactivespring.movies.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket shared by every request to one downstream. Each base request deposits {@code ratio} tokens,
+ * tokens also trickle in at {@code minPerSecond}, and each retry spends one whole token.
+ */
+public class RetryBudget {
+
+    // tolerates rounding when fractional deposits add up to a whole token
+    private static final double EPSILON = 1e-9;
+
+    private final LongSupplier nanoClock;
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxTokens;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public RetryBudget(double ratio, double minPerSecond, double maxTokens) {
+        this(ratio, minPerSecond, maxTokens, System::nanoTime);
+    }
+
+    RetryBudget(double ratio, double minPerSecond, double maxTokens, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    public synchronized void deposit() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1 - EPSILON) {
+            return false;
+        }
+        tokens = Math.max(0, tokens - 1);
+        return true;
+    }
+
+    public synchronized double availableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        var now = nanoClock.getAsLong();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefillNanos) / 1e9 * minPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -1,19 +1,33 @@
 package com.reactivespring.movies.util;
 
+import com.reactivespring.movies.config.RetryProperties;
 import com.reactivespring.movies.exception.MoviesInfoServerException;
 import com.reactivespring.movies.exception.ReviewsServerException;
-import reactor.core.Exceptions;
+import io.micrometer.core.instrument.MeterRegistry;
 import reactor.util.retry.Retry;
 
+import java.util.function.Predicate;
+
 public class RetryUtil {
-    public static Retry retrySpec() {
-        return Retry.fixedDelay(3, java.time.Duration.ofSeconds(1))
-                .filter(throwable -> throwable instanceof MoviesInfoServerException ||
-                        throwable instanceof ReviewsServerException)
-                .onRetryExhaustedThrow((retryBackoffSpec, retrySignal) -> {
-                   /* log.error("Retry exhausted: {}", retrySignal.totalRetries());
-                    return new RuntimeException("Retry exhausted");*/
-                    return Exceptions.propagate(retrySignal.failure());
-                });
+    public static Retry retrySpec(String client, RetryProperties.Policy policy, MeterRegistry meterRegistry) {
+        return new BudgetedRetry(client, policy, RetryUtil::isRetryable, meterRegistry);
+    }
+
+    /**
+     * Retries of a stream that stays open indefinitely: unbounded backoff within the policy's min and max backoff,
+     * starting over once a connection has delivered an element, so a disconnect long after the stream opened is
+     * retried like the first one. Neither the per-call attempts and time of {@link #retrySpec} nor its budget apply.
+     */
+    public static Retry streamRetrySpec(RetryProperties.Policy policy, Predicate<Throwable> retryable) {
+        return Retry.backoff(Long.MAX_VALUE, policy.getMinBackoff())
+                .maxBackoff(policy.getMaxBackoff())
+                .jitter(policy.getJitter())
+                .transientErrors(true)
+                .filter(retryable);
+    }
+
+    public static boolean isRetryable(Throwable throwable) {
+        return throwable instanceof MoviesInfoServerException ||
+                throwable instanceof ReviewsServerException;
     }
 }
@@ -0,0 +1,121 @@
+package com.reactivespring.movies.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.movies.domain.MovieInfo;
+import com.reactivespring.movies.util.NdjsonLineFramer;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-event cost of relaying the movie info NDJSON stream by decoding and re-encoding every
+ * event with Jackson against forwarding the framed lines untouched. Network-sized chunks come from a pooled
+ * Netty allocator, as they do on the client connection.
+ *
+ * <pre>
+ * mvn -pl movies-service test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp movies-service/target/test-classes:movies-service/target/classes:$(cat movies-service/target/cp.txt) \
+ *     org.openjdk.jmh.Main StreamPassthroughBenchmark -prof gc
+ * </pre>
+ *
+ * {@code -prof gc} reports {@code gc.alloc.rate.norm}, the bytes allocated per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(StreamPassthroughBenchmark.EVENTS)
+public class StreamPassthroughBenchmark {
+
+    static final int EVENTS = 1000;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final StringDecoder lineDecoder = StringDecoder.allMimeTypes();
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        var out = new StringBuilder();
+        for (int i = 0; i < EVENTS; i++) {
+            var movieInfo = new MovieInfo(String.valueOf(i), "Movie " + i, 2000 + i % 25,
+                    List.of("Christian Bale", "Michael Caine"), LocalDate.of(2005, 6, 15));
+            out.append(objectMapper.writeValueAsString(movieInfo)).append('\n');
+        }
+        payload = out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void decodeAndEncode(Blackhole blackhole) {
+        lineDecoder.decode(chunks(), ResolvableType.forClass(String.class), MediaType.APPLICATION_NDJSON, Map.of())
+                .map(line -> {
+                    try {
+                        var movieInfo = objectMapper.readValue(line, MovieInfo.class);
+                        return bufferFactory.wrap(objectMapper.writeValueAsBytes(movieInfo));
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer);
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    public void passthrough(Blackhole blackhole) {
+        // mirrors the passthrough path: framed by MoviesInfoRestClient, one copy out of the network buffer in
+        // MoviesInfoStreamService, then wrapped for the response
+        NdjsonLineFramer.frame(chunks())
+                .map(line -> {
+                    var bytes = new byte[line.readableByteCount()];
+                    line.read(bytes);
+                    DataBufferUtils.release(line);
+                    return bufferFactory.wrap(bytes);
+                })
+                .doOnNext(buffer -> {
+                    blackhole.consume(buffer);
+                    DataBufferUtils.release(buffer);
+                })
+                .blockLast();
+    }
+
+    private Flux<DataBuffer> chunks() {
+        var chunks = new ArrayList<DataBuffer>();
+        for (int offset = 0; offset < payload.length; offset += CHUNK_SIZE) {
+            var length = Math.min(CHUNK_SIZE, payload.length - offset);
+            var chunk = bufferFactory.allocateBuffer(length);
+            chunk.write(payload, offset, length);
+            chunks.add(chunk);
+        }
+        return Flux.fromIterable(chunks);
+    }
+}
@@ -0,0 +1,58 @@
+package com.reactivespring.movies.cache;
+
+import com.reactivespring.movies.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MovieInfoCacheTest {
+
+    private final MovieInfoCache movieInfoCache = new MovieInfoCache(true, 100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Mono<MovieInfo> load(String movieId) {
+        loads.incrementAndGet();
+        return Mono.just(new MovieInfo(movieId, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15)));
+    }
+
+    @Test
+    void getServesRepeatedLookupsFromCache() {
+        StepVerifier.create(movieInfoCache.get("1", this::load).then(movieInfoCache.get("1", this::load)))
+                .expectNextMatches(movieInfo -> movieInfo.getMovieInfoId().equals("1"))
+                .verifyComplete();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidateForcesReload() {
+        movieInfoCache.get("1", this::load).block();
+        movieInfoCache.invalidate("1");
+        movieInfoCache.get("1", this::load).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadRacingWithInvalidationIsNotCached() {
+        Sinks.One<MovieInfo> pending = Sinks.one();
+        var inFlight = movieInfoCache.get("1", id -> pending.asMono()).toFuture();
+
+        movieInfoCache.invalidate("1");
+        load("1").subscribe(pending::tryEmitValue);
+        inFlight.join();
+        movieInfoCache.get("1", this::load).block();
+
+        assertEquals(2, loads.get());
+    }
+}
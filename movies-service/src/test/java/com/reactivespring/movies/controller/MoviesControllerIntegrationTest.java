@@ -1,7 +1,13 @@
 package com.reactivespring.movies.controller;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.movies.client.MoviesInfoRestClient;
+import com.reactivespring.movies.config.HttpClientProperties;
 import com.reactivespring.movies.domain.Movie;
+import com.reactivespring.movies.domain.MovieResult;
+import com.reactivespring.movies.domain.MovieStreamElement;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -9,12 +15,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -23,11 +39,20 @@ import static org.junit.jupiter.api.Assertions.*;
 @AutoConfigureWireMock(port = 8084) //spin up a httpserver on port 8084
 @TestPropertySource(properties =
         {"restClient.reviewsInfoUrl=http://localhost:8084/v1/reviews",
-                "restClient.moviesInfoUrl=http://localhost:8084/v1/movies-info"})
+                "restClient.moviesInfoUrl=http://localhost:8084/v1/movies-info",
+                "restClient.moviesInfoCache.enabled=false"})
 @Slf4j
 class MoviesControllerIntegrationTest {
     @Autowired
     private WebTestClient webTestClient;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    @Autowired
+    private MoviesInfoRestClient moviesInfoRestClient;
 
     @AfterEach
     void tearDown() {
@@ -173,4 +198,547 @@ class MoviesControllerIntegrationTest {
         WireMock.verify(retryCount, getRequestedFor(urlPathMatching("/v1/reviews*")));
     }
 
-}
\ No newline at end of file
+    @Test
+    void retrieveMovieById_concurrentRequestsCoalesced() {
+        //given
+        var movieId = "1";
+        var concurrentRequests = 10;
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")
+                        .withFixedDelay(500)));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+        var mergedBefore = meterRegistry.get("movies.coalescer.requests").tag("result", "merged").counter().count();
+
+        //when
+        var movies = Flux.range(0, concurrentRequests)
+                .flatMap(i -> Mono.fromCallable(() -> webTestClient
+                                .get()
+                                .uri("/v1/movies/{id}", movieId)
+                                .exchange()
+                                .expectStatus().isOk()
+                                .expectBody(Movie.class)
+                                .returnResult()
+                                .getResponseBody())
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .collectList()
+                .block();
+
+        //then
+        assertNotNull(movies);
+        assertEquals(concurrentRequests, movies.size());
+        movies.forEach(movie -> assertEquals("Batman Begins", movie.getMovieInfo().getName()));
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movies-info" + "/" + movieId)));
+        WireMock.verify(1, getRequestedFor(urlPathMatching("/v1/reviews*")));
+        var mergedAfter = meterRegistry.get("movies.coalescer.requests").tag("result", "merged").counter().count();
+        assertEquals(concurrentRequests - 1, mergedAfter - mergedBefore);
+    }
+
+    @Test
+    void retrieveMoviesByIds() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movies-info/1"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlEqualTo("/v1/movies-info/2"))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.NOT_FOUND.value())));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        var results = webTestClient
+                .get()
+                .uri("/v1/movies?ids={ids}", "1,2,1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieResult.class)
+                .getResponseBody()
+                .collectMap(MovieResult::getMovieId)
+                .block();
+
+        //then
+        assertNotNull(results);
+        assertEquals(2, results.size());
+        assertEquals(200, results.get("1").getStatus());
+        assertEquals("Batman Begins", results.get("1").getMovie().getMovieInfo().getName());
+        assertEquals(2, results.get("1").getMovie().getReviews().size());
+        assertEquals(404, results.get("2").getStatus());
+        assertNull(results.get("2").getMovie());
+        assertEquals("Movie not found for movie ID: 2", results.get("2").getError());
+    }
+
+    @Test
+    void retrieveMovieById_nonCanonicalId() {
+        //given
+        var movieId = "01";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        var movie = webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Movie.class)
+                .returnResult()
+                .getResponseBody();
+
+        //then
+        assertNotNull(movie);
+        assertEquals(2, movie.getReviews().size());
+        WireMock.verify(getRequestedFor(urlPathEqualTo("/v1/reviews")).withQueryParam("movieInfoIds", equalTo("1")));
+    }
+
+    @Test
+    void retrieveMoviesByIds_tooManyIds() {
+        var ids = String.join(",", Flux.range(0, 51).map(String::valueOf).collectList().block());
+
+        webTestClient
+                .get()
+                .uri("/v1/movies?ids={ids}", ids)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void connectionPoolsAreConfiguredAndInstrumented() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isOk();
+
+        //then
+        assertTrue(httpClientProperties.getClients().keySet().containsAll(List.of("movies-info", "reviews")));
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.total.connections").tag("name", "movies-info").gauge());
+        assertNotNull(meterRegistry.find("reactor.netty.connection.provider.total.connections").tag("name", "reviews").gauge());
+    }
+
+    @Test
+    void retrieveMovieById_reviewsCircuitOpen() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+        var reviewsCircuitBreaker = circuitBreakerRegistry.circuitBreaker("reviews");
+        reviewsCircuitBreaker.transitionToForcedOpenState();
+
+        //when
+        try {
+            webTestClient
+                    .get()
+                    .uri("/v1/movies/{id}", movieId)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Movie.class)
+                    .consumeWith(response -> {
+                        var movie = response.getResponseBody();
+                        assertNotNull(movie);
+                        assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                        assertTrue(movie.getReviews().isEmpty());
+                    });
+        } finally {
+            reviewsCircuitBreaker.transitionToClosedState();
+        }
+
+        //then
+        WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/reviews*")));
+    }
+
+    @Test
+    void retrieveMovieById_movieInfoAndReviewsOverlap() {
+        //given
+        var movieId = "1";
+        var delayMillis = 1000;
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")
+                        .withFixedDelay(delayMillis)));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")
+                        .withFixedDelay(delayMillis)));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                .jsonPath("$.reviews.length()").isEqualTo(2);
+
+        //then
+        // fetched one after the other, the reviews request could only arrive once the movie info delay was over
+        var movieInfoRequest = findAll(getRequestedFor(urlEqualTo("/v1/movies-info" + "/" + movieId))).get(0);
+        var reviewsRequest = findAll(getRequestedFor(urlPathEqualTo("/v1/reviews"))).get(0);
+        var gapMillis = reviewsRequest.getLoggedDate().getTime() - movieInfoRequest.getLoggedDate().getTime();
+        assertTrue(Math.abs(gapMillis) < delayMillis, "reviews requested " + gapMillis + "ms after the movie info");
+    }
+
+    @Test
+    void retrieveMovieById_4XXWinsOverFasterReviewsFailure() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.NOT_FOUND.value())
+                        .withFixedDelay(500)));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .willReturn(aResponse()
+                        .withStatus(HttpStatus.BAD_REQUEST.value())
+                        .withBody("Invalid movieInfoId")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}", movieId)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody(String.class)
+                .isEqualTo("Movie not found for movie ID: %s".formatted(movieId));
+
+        //then
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movies-info" + "/" + movieId)));
+        WireMock.verify(1, getRequestedFor(urlPathMatching("/v1/reviews*")));
+    }
+
+    @Test
+    void retrieveMovieById_reviewsCircuitOpenWhileMovieInfoDelayed() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")
+                        .withFixedDelay(500)));
+        var reviewsCircuitBreaker = circuitBreakerRegistry.circuitBreaker("reviews");
+        reviewsCircuitBreaker.transitionToForcedOpenState();
+
+        //when
+        try {
+            webTestClient
+                    .get()
+                    .uri("/v1/movies/{id}", movieId)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(Movie.class)
+                    .consumeWith(response -> {
+                        var movie = response.getResponseBody();
+                        assertNotNull(movie);
+                        assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                        assertTrue(movie.getReviews().isEmpty());
+                    });
+        } finally {
+            reviewsCircuitBreaker.transitionToClosedState();
+        }
+
+        //then
+        WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/reviews*")));
+    }
+
+    @Test
+    void retrieveMovieInfosPassthrough() {
+        //given
+        var body = "{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}\n"
+                + "{\"movieInfoId\":\"2\",\"name\":\"The Dark Knight\",\"year\":2008}\n";
+        stubFor(get(urlEqualTo("/v1/movies-info/stream"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody(body)));
+
+        //when
+        var lines = webTestClient
+                .get()
+                .uri("/v1/movies/stream?passthrough=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(String.class)
+                .getResponseBody()
+                .take(2)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        //then
+        assertEquals(List.of(
+                "{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}",
+                "{\"movieInfoId\":\"2\",\"name\":\"The Dark Knight\",\"year\":2008}"), lines);
+    }
+
+    @Test
+    void retrieveMoviesStreamRawDiscardsLineCutOffByReconnect() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movies-info/stream"))
+                .inScenario("reconnect")
+                .whenScenarioStateIs(STARTED)
+                .willSetStateTo("reconnected")
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody("{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}\n{\"movieInfoId\":\"2\",\"na")));
+        stubFor(get(urlEqualTo("/v1/movies-info/stream"))
+                .inScenario("reconnect")
+                .whenScenarioStateIs("reconnected")
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody("{\"movieInfoId\":\"3\",\"name\":\"The Dark Knight Rises\",\"year\":2012}\n")));
+
+        //when
+        var lines = moviesInfoRestClient.retrieveMoviesStreamRaw()
+                .repeat(1)
+                .map(line -> {
+                    var text = line.toString(StandardCharsets.UTF_8);
+                    DataBufferUtils.release(line);
+                    return text;
+                })
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        //then
+        assertEquals(List.of(
+                "{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}\n",
+                "{\"movieInfoId\":\"3\",\"name\":\"The Dark Knight Rises\",\"year\":2012}\n"), lines);
+    }
+
+    @Test
+    void retrieveMoviesEventsResumesAfterLastEventId() {
+        //given
+        stubFor(get(urlEqualTo("/v1/movies-info/stream/events"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .withBody("id:41\ndata:{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}\n\n")));
+        stubFor(get(urlEqualTo("/v1/movies-info/stream/events"))
+                .withHeader("Last-Event-ID", equalTo("41"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .withBody("id:42\ndata:{\"movieInfoId\":\"2\",\"name\":\"The Dark Knight\",\"year\":2008}\n\n")));
+
+        //when
+        var events = moviesInfoRestClient.retrieveMoviesEvents()
+                .repeat(1)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        //then
+        assertNotNull(events);
+        assertEquals(3, events.size());
+        assertEquals(MoviesInfoRestClient.RESET_EVENT, events.get(0).event());
+        assertEquals("1", events.get(1).data().getMovieInfoId());
+        assertEquals("2", events.get(2).data().getMovieInfoId());
+        WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/movies-info/stream/events"))
+                .withHeader("Last-Event-ID", equalTo("41")));
+    }
+
+    @Test
+    void retrieveMoviesEventsRetriesBeyondTheCallRetryPolicy() {
+        //given: more failed connections than the 3 attempts a single call gets
+        var state = STARTED;
+        for (int i = 1; i <= 4; i++) {
+            stubFor(get(urlEqualTo("/v1/movies-info/stream/events"))
+                    .inScenario("unavailable")
+                    .whenScenarioStateIs(state)
+                    .willSetStateTo("failed " + i)
+                    .willReturn(aResponse().withStatus(503).withBody("Service Unavailable")));
+            state = "failed " + i;
+        }
+        stubFor(get(urlEqualTo("/v1/movies-info/stream/events"))
+                .inScenario("unavailable")
+                .whenScenarioStateIs(state)
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.TEXT_EVENT_STREAM_VALUE)
+                        .withBody("id:41\ndata:{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005}\n\n")));
+
+        //when
+        var events = moviesInfoRestClient.retrieveMoviesEvents()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        //then
+        assertNotNull(events);
+        assertEquals(2, events.size());
+        assertEquals("1", events.get(1).data().getMovieInfoId());
+        WireMock.verify(5, getRequestedFor(urlEqualTo("/v1/movies-info/stream/events")));
+    }
+
+    @Test
+    void streamMovieById() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .withHeader("Accept", equalTo(MediaType.APPLICATION_NDJSON_VALUE))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody("{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                                + "{\"reviewId\":\"2\",\"movieInfoId\":1,\"comment\":\"Excellent Movie\",\"rating\":8.0}\n")));
+
+        //when
+        var elements = webTestClient
+                .get()
+                .uri("/v1/movies/{id}/stream", movieId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(MovieStreamElement.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        //then
+        assertNotNull(elements);
+        assertEquals(3, elements.size());
+        assertEquals("Batman Begins", elements.get(0).getMovieInfo().getName());
+        assertNull(elements.get(0).getReview());
+        assertEquals("Awesome Movie", elements.get(1).getReview().getComment());
+        assertEquals("Excellent Movie", elements.get(2).getReview().getComment());
+        assertNull(elements.get(2).getMovieInfo());
+    }
+
+    @Test
+    void streamMovieById_usesItsOwnBreakerAndBulkhead() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .withHeader("Accept", equalTo(MediaType.APPLICATION_NDJSON_VALUE))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_NDJSON_VALUE)
+                        .withBody("{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n")));
+        var reviewsCircuitBreaker = circuitBreakerRegistry.circuitBreaker("reviews");
+        var streamCalls = circuitBreakerRegistry.circuitBreaker("reviewsStream").getMetrics().getNumberOfSuccessfulCalls();
+        reviewsCircuitBreaker.transitionToForcedOpenState();
+
+        //when
+        List<MovieStreamElement> elements;
+        try {
+            elements = webTestClient
+                    .get()
+                    .uri("/v1/movies/{id}/stream", movieId)
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .returnResult(MovieStreamElement.class)
+                    .getResponseBody()
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+        } finally {
+            reviewsCircuitBreaker.transitionToClosedState();
+        }
+
+        //then
+        assertNotNull(elements);
+        assertEquals(2, elements.size());
+        assertEquals("Awesome Movie", elements.get(1).getReview().getComment());
+        assertEquals(streamCalls + 1,
+                circuitBreakerRegistry.circuitBreaker("reviewsStream").getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    void streamMovieById_4XX() {
+        //given
+        var movieId = "abc";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withStatus(404)));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}/stream", movieId)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        //then
+        WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/reviews*")));
+    }
+
+    @Test
+    void retrieveMovieById_reviewsLimitAndSortPushedDown() {
+        //given
+        var movieId = "1";
+        stubFor(get(urlEqualTo("/v1/movies-info" + "/" + movieId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("movieinfo.json")));
+        stubFor(get(urlPathEqualTo("/v1/reviews"))
+                .withQueryParam("movieInfoId", equalTo(movieId))
+                .withQueryParam("limit", equalTo("2"))
+                .withQueryParam("sort", equalTo("rating"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBodyFile("reviews.json")));
+
+        //when
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}?reviewsLimit=2&reviewsSort=RATING", movieId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.movieInfo.name").isEqualTo("Batman Begins")
+                .jsonPath("$.reviews.length()").isEqualTo(2);
+
+        //then
+        WireMock.verify(1, getRequestedFor(urlPathEqualTo("/v1/reviews"))
+                .withQueryParam("limit", equalTo("2")));
+    }
+
+    @Test
+    void retrieveMovieById_invalidReviewsLimit() {
+        webTestClient
+                .get()
+                .uri("/v1/movies/{id}?reviewsLimit=0", "1")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("reviewsLimit must be between 1 and 500, got 0");
+
+        WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/movies-info.*")));
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.reactivespring.movies.service;
+
+import com.reactivespring.movies.client.MoviesInfoRestClient;
+import com.reactivespring.movies.domain.MovieInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MoviesInfoStreamServiceTest {
+
+    private final MoviesInfoRestClient moviesInfoRestClient = mock(MoviesInfoRestClient.class);
+    private final AtomicInteger upstreamSubscriptions = new AtomicInteger();
+
+    private static MovieInfo movieInfo(String id) {
+        return new MovieInfo(id, "Batman Begins", 2005, List.of("Christian Bale"), LocalDate.of(2005, 6, 15));
+    }
+
+    private MoviesInfoStreamService streamService(Flux<MovieInfo> upstream) {
+        return eventStreamService(upstream.map(movieInfo -> ServerSentEvent.builder(movieInfo).build()));
+    }
+
+    private MoviesInfoStreamService eventStreamService(Flux<ServerSentEvent<MovieInfo>> upstream) {
+        when(moviesInfoRestClient.retrieveMoviesEvents())
+                .thenReturn(upstream.doOnSubscribe(subscription -> upstreamSubscriptions.incrementAndGet()));
+        when(moviesInfoRestClient.retrieveMoviesStreamRaw()).thenReturn(Flux.never());
+        return new MoviesInfoStreamService(moviesInfoRestClient, 2, BufferOverflowStrategy.DROP_OLDEST,
+                Duration.ofMillis(10), Duration.ZERO, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void subscribersShareOneUpstreamSubscription() {
+        Sinks.Many<MovieInfo> upstream = Sinks.many().multicast().onBackpressureBuffer();
+        var streamService = streamService(upstream.asFlux());
+
+        var first = streamService.retrieveMoviesStream().take(2).collectList().toFuture();
+        var second = streamService.retrieveMoviesStream().take(2).collectList().toFuture();
+        upstream.tryEmitNext(movieInfo("1"));
+        upstream.tryEmitNext(movieInfo("2"));
+
+        assertEquals(2, first.join().size());
+        assertEquals(2, second.join().size());
+        assertEquals(1, upstreamSubscriptions.get());
+    }
+
+    @Test
+    void upstreamReconnectsWithoutDroppingSubscribers() {
+        var connections = new AtomicInteger();
+        var streamService = streamService(Flux.defer(() -> connections.incrementAndGet() == 1
+                ? Flux.concat(Flux.just(movieInfo("1")), Flux.error(new IllegalStateException("connection reset")))
+                : Flux.just(movieInfo("2"))));
+
+        StepVerifier.create(streamService.retrieveMoviesStream().map(MovieInfo::getMovieInfoId).take(2))
+                .expectNext("1", "2")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(2, upstreamSubscriptions.get());
+    }
+
+    @Test
+    void reconnectBackoffStartsOverAfterEvents() {
+        var connections = new AtomicInteger();
+        var connectedAt = new CopyOnWriteArrayList<Long>();
+
+        // six refused connections grow the backoff, then every connection delivers an event before it resets
+        StepVerifier.withVirtualTime(() -> streamService(Flux.defer(() -> {
+                    var connection = connections.incrementAndGet();
+                    if (connection <= 6) {
+                        return Flux.error(new IllegalStateException("connection refused"));
+                    }
+                    connectedAt.add(Schedulers.parallel().now(TimeUnit.MILLISECONDS));
+                    return Flux.concat(Flux.just(movieInfo(String.valueOf(connection))),
+                            Flux.error(new IllegalStateException("connection reset")));
+                })).retrieveMoviesStream().map(MovieInfo::getMovieInfoId).take(2))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectNext("7", "8")
+                .verifyComplete();
+        // the reconnect after an event waits the 10ms minimum (with jitter), not the grown backoff
+        assertTrue(connectedAt.get(1) - connectedAt.get(0) <= 15, "reconnected after " + connectedAt);
+    }
+
+    @Test
+    void slowSubscriberOnlyKeepsLatestEvents() {
+        var streamService = streamService(Flux.just(movieInfo("1"), movieInfo("2"), movieInfo("3"), movieInfo("4"))
+                .concatWith(Flux.never()));
+
+        StepVerifier.create(streamService.retrieveMoviesStream().map(MovieInfo::getMovieInfoId), 0)
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(100))
+                .thenRequest(2)
+                .expectNext("3", "4")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void resetEventsRunResetListenersAndAreNotForwarded() {
+        var resets = new AtomicInteger();
+        var reset = ServerSentEvent.<MovieInfo>builder().event(MoviesInfoRestClient.RESET_EVENT).build();
+        var streamService = eventStreamService(Flux.just(reset, ServerSentEvent.builder(movieInfo("1")).id("7").build())
+                .concatWith(Flux.never()));
+        streamService.addResetListener(resets::incrementAndGet);
+
+        StepVerifier.create(streamService.retrieveMoviesStream().map(MovieInfo::getMovieInfoId))
+                .expectNext("1")
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+        assertEquals(1, resets.get());
+    }
+}
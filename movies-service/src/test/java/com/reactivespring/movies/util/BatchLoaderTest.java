@@ -0,0 +1,68 @@
+package com.reactivespring.movies.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchLoaderTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    private final BatchLoader<Integer, String> batchLoader = new BatchLoader<>("test",
+            keys -> {
+                batches.add(keys);
+                return Flux.fromIterable(keys).flatMap(key -> Flux.just(key + "-a", key + "-b"));
+            },
+            value -> Integer.valueOf(value.substring(0, value.indexOf('-'))),
+            10, Duration.ofMillis(100), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        batchLoader.dispose();
+    }
+
+    @Test
+    void concurrentLoadsAreResolvedWithOneBatch() {
+        var results = Mono.zip(batchLoader.load(1), batchLoader.load(2), batchLoader.load(1));
+
+        StepVerifier.create(results)
+                .assertNext(tuple -> {
+                    assertEquals(List.of("1-a", "1-b"), tuple.getT1());
+                    assertEquals(List.of("2-a", "2-b"), tuple.getT2());
+                    assertEquals(List.of("1-a", "1-b"), tuple.getT3());
+                })
+                .verifyComplete();
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    void batchIsDispatchedOnceMaxSizeIsReached() {
+        var results = Flux.range(0, 25).flatMap(batchLoader::load).collectList();
+
+        StepVerifier.create(results)
+                .assertNext(values -> assertEquals(25, values.size()))
+                .verifyComplete();
+        assertEquals(3, batches.size());
+    }
+
+    @Test
+    void batchFailureIsPropagatedToEveryCaller() {
+        var failingLoader = new BatchLoader<Integer, String>("failing",
+                keys -> Flux.error(new IllegalStateException("boom")),
+                value -> 0, 10, Duration.ofMillis(10), new SimpleMeterRegistry());
+
+        StepVerifier.create(Mono.zip(failingLoader.load(1), failingLoader.load(2)))
+                .expectErrorMessage("boom")
+                .verify();
+        failingLoader.dispose();
+    }
+}
@@ -0,0 +1,79 @@
+package com.reactivespring.movies.util;
+
+import com.reactivespring.movies.config.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BudgetedRetryTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private BudgetedRetry budgetedRetry(int maxAttempts, double maxTokens) {
+        var policy = new RetryProperties.Policy();
+        policy.setMaxAttempts(maxAttempts);
+        policy.setMinBackoff(Duration.ofMillis(1));
+        policy.setMaxBackoff(Duration.ofMillis(1));
+        policy.getBudget().setRatio(0);
+        policy.getBudget().setMinRetriesPerSecond(0);
+        policy.getBudget().setMaxTokens(maxTokens);
+        return new BudgetedRetry("test", policy, IllegalStateException.class::isInstance, meterRegistry);
+    }
+
+    private Mono<String> failing() {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("unavailable"));
+        });
+    }
+
+    private double tokens() {
+        return meterRegistry.get("movies.retry.budget.tokens").gauge().value();
+    }
+
+    @Test
+    void exhaustedCallDoesNotSpendABudgetToken() {
+        var retry = budgetedRetry(2, 5);
+
+        StepVerifier.create(failing().retryWhen(retry))
+                .expectErrorMessage("unavailable")
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(3, calls.get());
+        assertEquals(3, tokens(), 0.001);
+        assertEquals(2, meterRegistry.get("movies.retry.attempts").counter().count());
+        assertEquals(1, meterRegistry.get("movies.retry.exhausted").counter().count());
+    }
+
+    @Test
+    void emptyBudgetFailsWithTheOriginalError() {
+        var retry = budgetedRetry(3, 1);
+
+        StepVerifier.create(failing().retryWhen(retry))
+                .expectErrorMessage("unavailable")
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(2, calls.get());
+        assertEquals(0, tokens(), 0.001);
+        assertEquals(1, meterRegistry.get("movies.retry.budget.rejected").counter().count());
+        assertEquals(0, meterRegistry.get("movies.retry.exhausted").counter().count());
+    }
+
+    @Test
+    void nonRetryableErrorDoesNotSpendABudgetToken() {
+        var retry = budgetedRetry(3, 1);
+
+        StepVerifier.create(Mono.error(new IllegalArgumentException("bad request")).retryWhen(retry))
+                .expectErrorMessage("bad request")
+                .verify(Duration.ofSeconds(1));
+
+        assertEquals(1, tokens(), 0.001);
+    }
+}
@@ -0,0 +1,52 @@
+package com.reactivespring.movies.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class NdjsonLineFramerTest {
+
+    private final DefaultDataBufferFactory bufferFactory = DefaultDataBufferFactory.sharedInstance;
+
+    @Test
+    void splitsLinesWithinAndAcrossBuffers() {
+        var buffers = Flux.just("{\"a\":1}\n{\"b\"", ":2}\n", "{\"c\":3}\n{\"d\":4}\n")
+                .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+
+        StepVerifier.create(NdjsonLineFramer.frame(buffers).map(NdjsonLineFramerTest::asString))
+                .expectNext("{\"a\":1}\n", "{\"b\":2}\n", "{\"c\":3}\n", "{\"d\":4}\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void dropsUnterminatedTrailingLineOnCompletion() {
+        var buffers = Flux.just("{\"a\":1}\n{\"b\"", ":2}")
+                .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+
+        StepVerifier.create(NdjsonLineFramer.frame(buffers).map(NdjsonLineFramerTest::asString))
+                .expectNext("{\"a\":1}\n")
+                .verifyComplete();
+    }
+
+    @Test
+    void lineCutOffByADroppedConnectionIsNotJoinedOntoTheNextConnection() {
+        var connections = new AtomicInteger();
+        var buffers = Flux.defer(() -> connections.incrementAndGet() == 1
+                        ? Flux.concat(Flux.just("{\"a\":1}\n{\"b\""), Flux.error(new IllegalStateException("connection reset")))
+                        : Flux.just("{\"c\":3}\n"))
+                .map(chunk -> (DataBuffer) bufferFactory.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+
+        StepVerifier.create(NdjsonLineFramer.frame(buffers).retry(1).map(NdjsonLineFramerTest::asString))
+                .expectNext("{\"a\":1}\n", "{\"c\":3}\n")
+                .verifyComplete();
+    }
+
+    private static String asString(DataBuffer buffer) {
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
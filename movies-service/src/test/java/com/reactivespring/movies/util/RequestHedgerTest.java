@@ -0,0 +1,88 @@
+package com.reactivespring.movies.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestHedger requestHedger = new RequestHedger("test", true, 0.95,
+            Duration.ofMillis(50), Duration.ofMillis(50), 1.0, meterRegistry);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void slowRequestIsHedged() {
+        var result = requestHedger.hedge(() -> calls.incrementAndGet() == 1
+                ? Mono.delay(Duration.ofSeconds(5)).thenReturn("primary")
+                : Mono.just("hedge"));
+
+        StepVerifier.create(result)
+                .expectNext("hedge")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("movies.hedge.issued").counter().count());
+        assertEquals(1, meterRegistry.get("movies.hedge.won").counter().count());
+    }
+
+    @Test
+    void fastRequestIsNotHedged() {
+        var result = requestHedger.hedge(() -> {
+            calls.incrementAndGet();
+            return Mono.just("primary");
+        });
+
+        StepVerifier.create(result)
+                .expectNext("primary")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertEquals(0, meterRegistry.get("movies.hedge.issued").counter().count());
+    }
+
+    @Test
+    void primaryErrorIsPropagated() {
+        var result = requestHedger.hedge(() -> {
+            calls.incrementAndGet();
+            return Mono.<String>error(new IllegalStateException("not found"));
+        });
+
+        StepVerifier.create(result)
+                .expectErrorMessage("not found")
+                .verify();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void primariesOvertakenByHedgesStillRaiseTheDelay() {
+        var hedger = new RequestHedger("censored", true, 0.95,
+                Duration.ofMillis(10), Duration.ofSeconds(1), 1.0, meterRegistry);
+        // fast primaries bring the delay down to its minimum
+        Flux.range(0, 100)
+                .flatMap(i -> hedger.hedge(() -> Mono.just("primary")))
+                .blockLast(Duration.ofSeconds(5));
+        assertEquals(10, meterRegistry.get("movies.hedge.delay").tag("name", "censored").gauge().value());
+
+        // primaries that never answer are only overtaken after the hedge delay plus the hedge's own 50ms
+        var hedgeCalls = new AtomicInteger();
+        Flux.range(0, 100)
+                .flatMap(i -> {
+                    var attempt = new AtomicInteger();
+                    return hedger.hedge(() -> attempt.getAndIncrement() == 0
+                            ? Mono.never()
+                            : Mono.delay(Duration.ofMillis(50)).doOnNext(tick -> hedgeCalls.incrementAndGet()));
+                }, 5) // within what the hedge budget allows at once
+                .blockLast(Duration.ofSeconds(10));
+
+        assertEquals(100, hedgeCalls.get());
+        assertTrue(meterRegistry.get("movies.hedge.delay").tag("name", "censored").gauge().value() >= 50);
+    }
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.movies.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void retriesAreLimitedToRatioOfBaseRequests() {
+        var retryBudget = new RetryBudget(0.1, 0, 2, () -> 0L);
+        assertTrue(retryBudget.tryAcquire());
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+
+        for (int i = 0; i < 10; i++) {
+            retryBudget.deposit();
+        }
+
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+    }
+
+    @Test
+    void depositsAreCappedAtMaxTokens() {
+        var retryBudget = new RetryBudget(1, 0, 3);
+        for (int i = 0; i < 100; i++) {
+            retryBudget.deposit();
+        }
+
+        assertEquals(3, retryBudget.availableTokens(), 0.001);
+    }
+
+    @Test
+    void tokensTrickleInOverTime() {
+        var clock = new AtomicLong();
+        var retryBudget = new RetryBudget(0, 10, 1, clock::get);
+        assertTrue(retryBudget.tryAcquire());
+        assertFalse(retryBudget.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(retryBudget.tryAcquire());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertTrue(retryBudget.tryAcquire());
+    }
+}